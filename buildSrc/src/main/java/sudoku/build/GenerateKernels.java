@@ -0,0 +1,131 @@
+package sudoku.build;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+// Generates sudoku.kata.Kernels: the 9x9 unit scans written out cell by cell.
+// Every cell and unit index is a constant in the generated code, so it contains no division, modulo or lookups,
+// and the JIT gets straight-line code for the fixed geometry.
+// Methods are kept below HotSpot's limit for compiling huge methods (8000 bytes of bytecode).
+public class GenerateKernels extends DefaultTask {
+
+    private File outputDir;
+
+    @OutputDirectory
+    public File getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(File outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    @TaskAction
+    public void generate() throws IOException {
+        File file = new File(outputDir, "sudoku/kata/Kernels.java");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Cell indices of rows 0-8, columns 9-17 and blocks 18-26, same order as sudoku.kata.Units
+    static int[][] units() {
+        int[][] cells = new int[27][9];
+        for (int unit = 0; unit < 9; unit++)
+            for (int i = 0; i < 9; i++) {
+                cells[unit][i] = 9 * unit + i;
+                cells[9 + unit][i] = 9 * i + unit;
+                cells[18 + unit][i] = 9 * ((unit / 3) * 3 + i / 3) + (unit % 3) * 3 + i % 3;
+            }
+        return cells;
+    }
+
+    static String source() {
+        int[][] units = units();
+        StringBuilder out = new StringBuilder();
+
+        out.append("package sudoku.kata;\n\n");
+        out.append("// Generated by sudoku.build.GenerateKernels - do not edit.\n");
+        out.append("// Straight-line versions of the 9x9 unit scans, checked against the generic loops by KernelCheck.\n");
+        out.append("final class Kernels {\n\n");
+        out.append("    private static final int ALL_ONES = (1 << 9) - 1;\n\n");
+        out.append("    private Kernels() {\n    }\n\n");
+
+        // Candidate masks of all cells: OR of placed digits per unit, then three units per cell.
+        // (1 << d) >>> 1 is the bit of digit d and 0 for an empty cell, (d - 1) >> 31 is all ones only for an empty cell.
+        out.append("    // Candidate masks of all cells, 0 for filled cells\n");
+        out.append("    static void candidateMasks(int[] state, int[] masks) {\n");
+        for (int unit = 0; unit < 27; unit++) {
+            out.append("        int used").append(unit).append(" = ");
+            for (int i = 0; i < 9; i++)
+                out.append(i > 0 ? " | " : "").append("(1 << state[").append(units[unit][i]).append("]) >>> 1");
+            out.append(";\n");
+        }
+        for (int index = 0; index < 81; index++) {
+            int row = index / 9;
+            int col = index % 9;
+            int block = 18 + 3 * (row / 3) + col / 3;
+            out.append("        masks[").append(index).append("] = ALL_ONES & ~(used").append(row).append(" | used").append(9 + col)
+                    .append(" | used").append(block).append(") & ((state[").append(index).append("] - 1) >> 31);\n");
+        }
+        out.append("    }\n\n");
+
+        out.append("    // Digits placed in the unit\n");
+        out.append("    static int placedDigits(int[] state, int unit) {\n");
+        out.append("        switch (unit) {\n");
+        for (int unit = 0; unit < 27; unit++) {
+            out.append("            case ").append(unit).append(":\n                return ");
+            for (int i = 0; i < 9; i++)
+                out.append(i > 0 ? " | " : "").append("(1 << state[").append(units[unit][i]).append("]) >>> 1");
+            out.append(";\n");
+        }
+        out.append("            default:\n                throw new IndexOutOfBoundsException(\"Unit \" + unit);\n");
+        out.append("        }\n    }\n\n");
+
+        out.append("    // Copies candidate masks of the unit's cells into result\n");
+        out.append("    static void unitMasks(int[] masks, int unit, int[] result) {\n");
+        out.append("        switch (unit) {\n");
+        for (int unit = 0; unit < 27; unit++) {
+            out.append("            case ").append(unit).append(":\n");
+            for (int i = 0; i < 9; i++)
+                out.append("                result[").append(i).append("] = masks[").append(units[unit][i]).append("];\n");
+            out.append("                return;\n");
+        }
+        out.append("            default:\n                throw new IndexOutOfBoundsException(\"Unit \" + unit);\n");
+        out.append("        }\n    }\n\n");
+
+        out.append("    // First digit which can only appear in one place in a unit, packed as by CandidateBoard.packHiddenSingle(), or -1\n");
+        out.append("    static int hiddenSingle(int[] masks) {\n");
+        out.append("        int found;\n");
+        for (int unit = 0; unit < 27; unit++)
+            out.append("        if ((found = hiddenSingle").append(unit).append("(masks)) >= 0)\n            return found;\n");
+        out.append("        return -1;\n    }\n");
+
+        for (int unit = 0; unit < 27; unit++) {
+            int[] cells = units[unit];
+            out.append("\n    private static int hiddenSingle").append(unit).append("(int[] masks) {\n");
+            out.append("        int once = masks[").append(cells[0]).append("];\n");
+            out.append("        int twice = 0;\n");
+            for (int i = 1; i < 9; i++) {
+                out.append("        twice |= once & masks[").append(cells[i]).append("];\n");
+                out.append("        once |= masks[").append(cells[i]).append("];\n");
+            }
+            out.append("        int single = once & ~twice;\n");
+            out.append("        if (single == 0)\n            return -1;\n");
+            out.append("        single &= -single;\n");
+            out.append("        int digit = Integer.numberOfTrailingZeros(single) + 1;\n");
+            for (int i = 0; i < 9; i++)
+                out.append("        if ((masks[").append(cells[i]).append("] & single) != 0)\n            return ")
+                        .append(unit << 11 | cells[i] << 4).append(" | digit;\n");
+            out.append("        return -1;\n    }\n");
+        }
+
+        out.append("}\n");
+        return out.toString();
+    }
+}
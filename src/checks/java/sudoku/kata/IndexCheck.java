@@ -0,0 +1,185 @@
+package sudoku.kata;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Checks the crash and restart behaviour of SolutionIndex and the solve command on small index files:
+// a full index refuses new puzzles while solving goes on, a reopened index still hits, a slot torn by a crash
+// is rewritten by the next put(), and workers opening a new or half-created file together all get a usable index.
+// Run by the checkIndex Gradle task; exits with status 1 on the first failure.
+//
+// Usage: IndexCheck [--seed N]
+final class IndexCheck {
+
+    private static final int SLOTS = 4;
+    private static final int HEADER_BYTES = 4096;
+    private static final int SLOT_BYTES = 128;
+    private static final int CHECKSUM_OFFSET = 112;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        Random rng = new Random(options.getLong("seed", 1));
+        Path directory = Files.createTempDirectory("index-check");
+        try {
+            int[][] puzzles = new int[2 * SLOTS + 2][];
+            int[][] solutions = new int[puzzles.length][];
+            for (int i = 0; i < puzzles.length; i++) {
+                solutions[i] = Solver.solvedBoard(rng);
+                puzzles[i] = Pipeline.removeDigits(solutions[i], rng, 40, 9);
+            }
+
+            fullIndex(directory.resolve("full.idx"), puzzles, solutions);
+            tornSlots(directory.resolve("torn.idx"), puzzles, solutions);
+            solveWithFullIndex(directory.resolve("solve.idx"), puzzles);
+            simultaneousOpens(directory.resolve("shared.idx"), puzzles[0], solutions[0]);
+            halfCreated(directory.resolve("half.idx"), puzzles[0], solutions[0]);
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList())
+                    Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+
+        System.out.println("Solution index survives full, torn, reopened and concurrently created files.");
+    }
+
+    // put() reports a full index instead of throwing, and what was stored is found again after reopening
+    private static void fullIndex(Path path, int[][] puzzles, int[][] solutions) throws IOException {
+        try (SolutionIndex index = SolutionIndex.open(path, SLOTS, true)) {
+            for (int i = 0; i < SLOTS; i++)
+                check(index.put(puzzles[i], solutions[i], i), "put into a free slot failed");
+            check(!index.put(puzzles[SLOTS], solutions[SLOTS], 0), "put into a full index succeeded");
+            check(index.put(puzzles[0], solutions[0], 0), "put of a present puzzle into a full index failed");
+        }
+
+        try (SolutionIndex index = SolutionIndex.open(path, SLOTS, true)) {
+            int[] solution = new int[9 * 9];
+            for (int i = 0; i < SLOTS; i++) {
+                check(index.find(puzzles[i], solution) == i, "reopened index missed a stored puzzle");
+                check(Arrays.equals(solution, solutions[i]), "reopened index returned a wrong solution");
+            }
+            check(index.find(puzzles[SLOTS], solution) < 0, "reopened index found a puzzle that did not fit");
+        }
+    }
+
+    // A slot with a bad checksum is never matched, and put() of its puzzle rewrites it in place
+    private static void tornSlots(Path path, int[][] puzzles, int[][] solutions) throws IOException {
+        try (SolutionIndex index = SolutionIndex.open(path, SLOTS, true)) {
+            for (int i = 0; i < SLOTS; i++)
+                index.put(puzzles[i], solutions[i], i);
+        }
+
+        // Flip one checksum byte of every slot, as a crash between the body and the checksum would leave it
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                long position = HEADER_BYTES + (long) slot * SLOT_BYTES + CHECKSUM_OFFSET;
+                file.seek(position);
+                int value = file.read();
+                file.seek(position);
+                file.write(value ^ 0xFF);
+            }
+        }
+
+        try (SolutionIndex index = SolutionIndex.open(path, SLOTS, true)) {
+            int[] solution = new int[9 * 9];
+            for (int i = 0; i < SLOTS; i++)
+                check(index.find(puzzles[i], solution) < 0, "torn slot was matched");
+            for (int i = 0; i < SLOTS; i++)
+                check(index.put(puzzles[i], solutions[i], i), "torn slot was not rewritten");
+            for (int i = 0; i < SLOTS; i++)
+                check(index.find(puzzles[i], solution) == i, "rewritten slot missed");
+        }
+    }
+
+    // The solve command keeps answering every puzzle once its index is full, and a later run hits what was stored
+    private static void solveWithFullIndex(Path path, int[][] puzzles) throws IOException {
+        try (SolutionIndex index = SolutionIndex.open(path, SLOTS, true)) {
+            SolveCommand command = new SolveCommand(index);
+            for (int[] puzzle : puzzles)
+                check(!command.solve(Codes.toCode(puzzle)).endsWith("no solution"), "solve stopped answering with a full index");
+        }
+
+        try (SolutionIndex index = SolutionIndex.open(path, SLOTS, true)) {
+            int hits = 0;
+            int[] solution = new int[9 * 9];
+            for (int[] puzzle : puzzles)
+                if (index.find(puzzle, solution) >= 0)
+                    hits += 1;
+            check(hits == SLOTS, "a full index should keep exactly its first " + SLOTS + " puzzles, has " + hits);
+        }
+    }
+
+    // Workers opening a missing file at the same moment: one creates and writes it, the others wait and read it
+    private static void simultaneousOpens(Path path, int[] puzzle, int[] solution) throws Exception {
+        int workers = 8;
+        CountDownLatch ready = new CountDownLatch(workers);
+        AtomicInteger writers = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<SolutionIndex> indexes = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    ready.await();
+                    SolutionIndex index = SolutionIndex.open(path, 1 << 16, true);
+                    if (index.isWritable())
+                        writers.incrementAndGet();
+                    synchronized (indexes) {
+                        indexes.add(index);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        check(failure.get() == null, "simultaneous open failed: " + failure.get());
+        check(writers.get() == 1, "simultaneous opens gave " + writers.get() + " writers");
+        for (SolutionIndex index : indexes)
+            if (index.isWritable())
+                index.put(puzzle, solution, 1);
+        int[] found = new int[9 * 9];
+        for (SolutionIndex index : indexes) {
+            check(index.find(puzzle, found) == 1, "reader of a concurrently created index missed the writer's puzzle");
+            index.close();
+        }
+    }
+
+    // A creator that died after the header leaves a short file; the next writer finishes it
+    private static void halfCreated(Path path, int[] puzzle, int[] solution) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(0x5355444F4B554958L).putInt(1).putInt(Integer.numberOfTrailingZeros(SLOTS)).flip();
+        Files.write(path, header.array());
+
+        try (SolutionIndex index = SolutionIndex.open(path, SLOTS, true)) {
+            check(index.isWritable(), "half-created index was not opened for writing");
+            check(index.put(puzzle, solution, 1), "put into a finished index failed");
+        }
+        check(Files.size(path) == HEADER_BYTES + (long) SLOTS * SLOT_BYTES, "half-created index was not extended");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            System.err.println("SolutionIndex: " + message);
+            System.exit(1);
+        }
+    }
+}
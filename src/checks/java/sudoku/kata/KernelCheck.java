@@ -0,0 +1,91 @@
+package sudoku.kata;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Checks the generated Kernels against the generic loops over Units on random boards.
+// Run by the checkKernels Gradle task from the checks source set, which stays out of the jar; exits with status 1 on the first mismatch.
+//
+// Usage: KernelCheck [--boards N] [--seed N]
+final class KernelCheck {
+
+    private static final int ALL_ONES = (1 << 9) - 1;
+
+    public static void main(String[] args) {
+        Options options = new Options(args);
+        int boards = options.getInt("boards", 20000);
+        Random rng = new Random(options.getLong("seed", 1));
+
+        int[] masks = new int[9 * 9];
+        int[] expectedUnit = new int[9];
+        int[] actualUnit = new int[9];
+
+        for (int board = 0; board < boards; board++) {
+            int[] state = Pipeline.removeDigits(Solver.solvedBoard(rng), rng, rng.nextInt(9 * 9 - 27) + 27, 9);
+
+            int[] expectedMasks = candidateMasks(state);
+            Kernels.candidateMasks(state, masks);
+            check(Arrays.equals(expectedMasks, masks), "candidateMasks", state);
+
+            // Random eliminations give hidden singles that do not follow from the placed digits alone
+            for (int index = 0; index < masks.length; index++)
+                if (rng.nextInt(4) == 0)
+                    masks[index] &= ~(1 << rng.nextInt(9));
+            check(hiddenSingle(masks) == Kernels.hiddenSingle(masks), "hiddenSingle", state);
+
+            for (int unit = 0; unit < Units.COUNT; unit++) {
+                check(placedDigits(state, unit) == Kernels.placedDigits(state, unit), "placedDigits", state);
+                for (int i = 0; i < 9; i++)
+                    expectedUnit[i] = masks[Units.CELLS[unit][i]];
+                Kernels.unitMasks(masks, unit, actualUnit);
+                check(Arrays.equals(expectedUnit, actualUnit), "unitMasks", state);
+            }
+        }
+
+        System.out.println("Kernels match the generic implementation on " + boards + " boards.");
+    }
+
+    private static void check(boolean condition, String kernel, int[] state) {
+        if (!condition) {
+            System.err.println("Kernels." + kernel + " differs from the generic implementation on " + Codes.toCode(state));
+            System.exit(1);
+        }
+    }
+
+    static int[] candidateMasks(int[] state) {
+        int[] masks = new int[state.length];
+        for (int index = 0; index < state.length; index++)
+            if (state[index] == 0) {
+                int used = 0;
+                for (int peer : Units.PEERS[index])
+                    if (state[peer] > 0)
+                        used |= 1 << (state[peer] - 1);
+                masks[index] = ALL_ONES & ~used;
+            }
+        return masks;
+    }
+
+    static int hiddenSingle(int[] masks) {
+        for (int unit = 0; unit < Units.COUNT; unit++)
+            for (int digit = 1; digit <= 9; digit++) {
+                int count = 0;
+                int found = -1;
+                for (int cell : Units.CELLS[unit])
+                    if ((masks[cell] & (1 << (digit - 1))) != 0) {
+                        count += 1;
+                        found = cell;
+                    }
+                if (count == 1)
+                    return CandidateBoard.packHiddenSingle(unit, found, digit);
+            }
+        return -1;
+    }
+
+    static int placedDigits(int[] state, int unit) {
+        int placed = 0;
+        for (int cell : Units.CELLS[unit])
+            if (state[cell] > 0)
+                placed |= 1 << (state[cell] - 1);
+        return placed;
+    }
+}
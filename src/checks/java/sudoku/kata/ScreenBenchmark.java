@@ -0,0 +1,55 @@
+package sudoku.kata;
+
+import java.util.Random;
+
+// Measures screening throughput of BitSlicedSingles against the scalar singles of CandidateBoard on the same puzzles,
+// generated like pipeline's defaults (30 clues, at most 6 removed per block), so the numbers can be tracked over time.
+// Run by the screenBenchmark Gradle task.
+//
+// Usage: ScreenBenchmark [--boards N] [--rounds N] [--seed N]
+final class ScreenBenchmark {
+
+    public static void main(String[] args) {
+        Options options = new Options(args);
+        int boards = options.getInt("boards", 20000) / BitSlicedSingles.BOARDS * BitSlicedSingles.BOARDS;
+        int rounds = options.getInt("rounds", 10);
+        Random rng = new Random(options.getLong("seed", 1));
+
+        int[][] puzzles = new int[boards][];
+        for (int i = 0; i < boards; i++)
+            puzzles[i] = Pipeline.removeDigits(Solver.solvedBoard(rng), rng, 30, 6);
+
+        BitSlicedSingles engine = new BitSlicedSingles();
+        CandidateBoard board = new CandidateBoard();
+        int[][] batch = new int[BitSlicedSingles.BOARDS][];
+
+        // First round of each only warms up the JIT
+        long bitSliced = 0;
+        long scalar = 0;
+        long passed = 0;
+        for (int round = 0; round <= rounds; round++) {
+            long start = System.nanoTime();
+            passed = 0;
+            for (int first = 0; first < boards; first += BitSlicedSingles.BOARDS) {
+                System.arraycopy(puzzles, first, batch, 0, BitSlicedSingles.BOARDS);
+                engine.load(batch, BitSlicedSingles.BOARDS);
+                passed += Long.bitCount(engine.solve(-1L));
+            }
+            long middle = System.nanoTime();
+            for (int[] puzzle : puzzles)
+                ScreenCheck.singles(board, puzzle);
+            long end = System.nanoTime();
+
+            if (round > 0) {
+                bitSliced += middle - start;
+                scalar += end - middle;
+            }
+        }
+
+        double bitSlicedMicros = bitSliced / 1000.0 / rounds / boards;
+        double scalarMicros = scalar / 1000.0 / rounds / boards;
+        System.out.format("%d puzzles, %d solvable by singles alone, %d rounds%n", boards, passed, rounds);
+        System.out.format("bit-sliced %.2fus/puzzle, scalar %.2fus/puzzle, speed-up %.2fx%n",
+                bitSlicedMicros, scalarMicros, scalarMicros / bitSlicedMicros);
+    }
+}
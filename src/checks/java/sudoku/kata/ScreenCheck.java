@@ -0,0 +1,88 @@
+package sudoku.kata;
+
+import java.util.Random;
+
+// Checks BitSlicedSingles against the scalar singles of CandidateBoard on random puzzles, some with clashing givens.
+// A puzzle passes the reference when repeated naked and hidden singles fill a grid in which no unit repeats a digit;
+// the bit-sliced engine must report exactly those puzzles as solved, with the same digits.
+// Run by the checkScreen Gradle task; exits with status 1 on the first mismatch.
+//
+// Usage: ScreenCheck [--boards N] [--seed N]
+final class ScreenCheck {
+
+    private static final int ALL_ONES = (1 << 9) - 1;
+
+    public static void main(String[] args) {
+        Options options = new Options(args);
+        int boards = options.getInt("boards", 20000);
+        Random rng = new Random(options.getLong("seed", 1));
+
+        BitSlicedSingles engine = new BitSlicedSingles();
+        CandidateBoard board = new CandidateBoard();
+        int[][] puzzles = new int[BitSlicedSingles.BOARDS][];
+        int[][] expected = new int[BitSlicedSingles.BOARDS][];
+        long passed = 0;
+        long clashing = 0;
+
+        for (int done = 0; done < boards; ) {
+            // Last batch may be partial, which masks out the unused boards
+            int count = Math.min(BitSlicedSingles.BOARDS, boards - done);
+            for (int i = 0; i < count; i++) {
+                int[] puzzle = Pipeline.removeDigits(Solver.solvedBoard(rng), rng, rng.nextInt(20) + 25, 9);
+                if (rng.nextInt(8) == 0)
+                    puzzle[rng.nextInt(puzzle.length)] = rng.nextInt(9) + 1;
+                if (!Solver.isConsistent(puzzle))
+                    clashing += 1;
+                puzzles[i] = puzzle;
+                expected[i] = singles(board, puzzle) ? board.state.clone() : null;
+            }
+
+            long used = count == BitSlicedSingles.BOARDS ? -1L : (1L << count) - 1;
+            engine.load(puzzles, count);
+            long solved = engine.solve(used);
+            check((solved & ~used) == 0, "solved an unused board", puzzles[0]);
+
+            for (int i = 0; i < count; i++) {
+                boolean actual = (solved >>> i & 1) != 0;
+                check(actual == (expected[i] != null), actual ? "solved, reference is not" : "not solved, reference is", puzzles[i]);
+                if (actual) {
+                    passed += 1;
+                    for (int cell = 0; cell < 9 * 9; cell++)
+                        check(engine.digit(i, cell) == expected[i][cell], "digit differs at cell " + cell, puzzles[i]);
+                }
+            }
+            done += count;
+        }
+
+        System.out.println("Bit-sliced singles match CandidateBoard on " + boards + " puzzles (" + passed + " solved, "
+                + clashing + " with clashing givens).");
+    }
+
+    // Applies naked and hidden singles until none is left; true when that yields a valid grid
+    static boolean singles(CandidateBoard board, int[] puzzle) {
+        board.load(puzzle);
+        while (!board.isSolved()) {
+            int index = board.nakedSingle();
+            if (index >= 0) {
+                board.place(index, Integer.numberOfTrailingZeros(board.masks[index]) + 1);
+                continue;
+            }
+            int hiddenSingle = board.hiddenSingle();
+            if (hiddenSingle < 0)
+                return false;
+            board.place(CandidateBoard.hiddenSingleIndex(hiddenSingle), CandidateBoard.hiddenSingleDigit(hiddenSingle));
+        }
+
+        for (int unit = 0; unit < Units.COUNT; unit++)
+            if (Kernels.placedDigits(board.state, unit) != ALL_ONES)
+                return false;
+        return true;
+    }
+
+    private static void check(boolean condition, String what, int[] puzzle) {
+        if (!condition) {
+            System.err.println("BitSlicedSingles " + what + " on " + Codes.toCode(puzzle));
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package sudoku.kata;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+// Decides for 64 puzzles at once whether they can be solved by single candidates alone, i.e. by the first two rules
+// of Program.play(): a cell with only one candidate, and a digit with only one place in a row/column/block.
+// Boards are bit-sliced: bit i of every word belongs to board i, and candidates[9 * cell + d] says which boards
+// still have digit d + 1 as a candidate in the cell. Both rules then run on all boards with bitwise operations only.
+// Boards which finish, stall or run into a contradiction are masked out of further work.
+// An instance is not thread-safe.
+//
+// Usage: screen [--in file] [--out file]
+// Input lines start with a puzzle code; lines of puzzles solved by singles alone are copied to the output.
+// Lines whose code cannot be parsed do not pass and are counted as malformed in the summary on stderr.
+final class BitSlicedSingles {
+
+    static final int BOARDS = 64;
+
+    private final long[] candidates = new long[9 * 9 * 9];
+
+    // Boards in which the cell's digit is known and removed from its peers
+    private final long[] placed = new long[9 * 9];
+
+    // Boards in which digit d + 1 is placed in the unit, at [9 * unit + d]; lets settled units be skipped
+    private final long[] unitPlaced = new long[Units.COUNT * 9];
+
+    private long contradicted;
+
+    // Loads puzzles into boards 0..count-1; remaining boards are left out of solving
+    void load(int[][] puzzles, int count) {
+        if (count > BOARDS)
+            throw new IllegalArgumentException("At most " + BOARDS + " boards, got " + count);
+
+        Arrays.fill(candidates, 0);
+        Arrays.fill(placed, 0);
+        Arrays.fill(unitPlaced, 0);
+        contradicted = 0;
+
+        // A clue is a cell with a single candidate, placed by the first naked single pass.
+        // Empty cells are collected per cell first and get all nine candidates at the end.
+        for (int board = 0; board < count; board++) {
+            long bit = 1L << board;
+            int[] puzzle = puzzles[board];
+            for (int cell = 0; cell < 9 * 9; cell++)
+                if (puzzle[cell] == 0)
+                    placed[cell] |= bit;
+                else
+                    candidates[9 * cell + puzzle[cell] - 1] |= bit;
+        }
+
+        for (int cell = 0; cell < 9 * 9; cell++) {
+            long empty = placed[cell];
+            for (int digit = 0; digit < 9; digit++)
+                candidates[9 * cell + digit] |= empty;
+            placed[cell] = 0;
+        }
+    }
+
+    // Applies both rules until every board is solved or stuck. Returns the boards solved completely.
+    long solve(long boards) {
+        long active = boards;
+        long solved = 0;
+
+        while (active != 0) {
+            long changed = nakedSingles(active);
+            changed |= hiddenSingles(active);
+
+            long complete = active;
+            for (long cellPlaced : placed)
+                complete &= cellPlaced;
+
+            solved |= complete & ~contradicted;
+            active &= changed & ~complete & ~contradicted;
+        }
+
+        return solved;
+    }
+
+    // Boards found to have no solution by the last solve()
+    long contradicted() {
+        return contradicted;
+    }
+
+    // Digit of the cell on the board, 0 while unknown
+    int digit(int board, int cell) {
+        if ((placed[cell] >>> board & 1) == 0)
+            return 0;
+        for (int digit = 0; digit < 9; digit++)
+            if ((candidates[9 * cell + digit] >>> board & 1) != 0)
+                return digit + 1;
+        return 0;
+    }
+
+    // Places every cell with exactly one candidate and removes its digit from the peers
+    private long nakedSingles(long active) {
+        long changed = 0;
+        for (int cell = 0; cell < 9 * 9; cell++) {
+            if ((active & ~placed[cell]) == 0)
+                continue;
+
+            long once = 0;
+            long twice = 0;
+            for (int digit = 0; digit < 9; digit++) {
+                long candidate = candidates[9 * cell + digit];
+                twice |= once & candidate;
+                once |= candidate;
+            }
+
+            contradicted |= active & ~once;
+            long single = active & once & ~twice & ~placed[cell];
+            if (single == 0)
+                continue;
+
+            placed[cell] |= single;
+            changed |= single;
+            int[] units = Units.OF_CELL[cell];
+            for (int digit = 0; digit < 9; digit++) {
+                long place = single & candidates[9 * cell + digit];
+                if (place == 0)
+                    continue;
+
+                for (int peer : Units.PEERS[cell])
+                    candidates[9 * peer + digit] &= ~place;
+                for (int unit : units)
+                    unitPlaced[9 * unit + digit] |= place;
+            }
+        }
+        return changed;
+    }
+
+    // Reduces the candidates of a cell to the digit which has no other place in one of its units.
+    // The cell is then placed by the next naked single pass.
+    private long hiddenSingles(long active) {
+        long changed = 0;
+        for (int unit = 0; unit < Units.COUNT; unit++) {
+            int[] cells = Units.CELLS[unit];
+            for (int digit = 0; digit < 9; digit++) {
+                if ((active & ~unitPlaced[9 * unit + digit]) == 0)
+                    continue;
+
+                long once = 0;
+                long twice = 0;
+                for (int cell : cells) {
+                    long candidate = candidates[9 * cell + digit];
+                    twice |= once & candidate;
+                    once |= candidate;
+                }
+
+                contradicted |= active & ~once;
+                long single = active & once & ~twice;
+                if (single == 0)
+                    continue;
+
+                for (int cell : cells) {
+                    long reduce = single & candidates[9 * cell + digit] & ~placed[cell];
+                    if (reduce == 0)
+                        continue;
+                    for (int other = 0; other < 9; other++)
+                        if (other != digit && (candidates[9 * cell + other] & reduce) != 0) {
+                            candidates[9 * cell + other] &= ~reduce;
+                            changed |= reduce;
+                        }
+                }
+            }
+        }
+        return changed;
+    }
+
+    static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        String in = options.get("in", null);
+        String out = options.get("out", null);
+
+        BufferedReader reader = new BufferedReader(in != null ? new FileReader(in) : new InputStreamReader(System.in), 1 << 16);
+        Writer writer = new BufferedWriter(out != null ? new FileWriter(out) : new OutputStreamWriter(System.out), 1 << 16);
+
+        BitSlicedSingles engine = new BitSlicedSingles();
+        String[] lines = new String[BOARDS];
+        int[][] puzzles = new int[BOARDS][];
+        long total = 0;
+        long passed = 0;
+        long malformed = 0;
+        long start = System.nanoTime();
+
+        try {
+            while (true) {
+                int count = 0;
+                String line;
+                while (count < BOARDS && (line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    String code = (tab >= 0 ? line.substring(0, tab) : line).trim();
+                    if (code.isEmpty())
+                        continue;
+                    try {
+                        puzzles[count] = Codes.parse(code);
+                    } catch (IllegalArgumentException e) {
+                        malformed += 1;
+                        continue;
+                    }
+                    lines[count] = line;
+                    count += 1;
+                }
+                if (count == 0)
+                    break;
+
+                engine.load(puzzles, count);
+                long solved = engine.solve(count == BOARDS ? -1L : (1L << count) - 1);
+                for (int board = 0; board < count; board++)
+                    if ((solved >>> board & 1) != 0) {
+                        writer.write(lines[board]);
+                        writer.write(System.lineSeparator());
+                    }
+
+                total += count;
+                passed += Long.bitCount(solved);
+            }
+        } finally {
+            // Keeps the lines screened before a failure
+            writer.flush();
+            if (in != null)
+                reader.close();
+            if (out != null)
+                writer.close();
+        }
+
+        System.err.format("%d puzzles screened, %d solvable by singles alone, %d malformed lines skipped, %d ms%n",
+                total, passed, malformed, (System.nanoTime() - start) / 1_000_000);
+    }
+}
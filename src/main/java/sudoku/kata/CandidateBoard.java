@@ -0,0 +1,137 @@
+package sudoku.kata;
+
+// Board state with candidate masks kept up to date incrementally, and the deduction rules of Program.play() over it.
+// Unlike play(), eliminations found by the subset rules are kept when digits are placed,
+// and those rules are looked up per unit in UnitDeductionCache.
+// Solved cells have mask 0. Instances are reused between puzzles through load().
+final class CandidateBoard {
+
+    final int[] state = new int[9 * 9];
+    final int[] masks = new int[9 * 9];
+
+    // Unit in which the last nakedPair() or hiddenGroup() found its deduction
+    int deductionUnit = -1;
+
+    private final int[] unitMasks = new int[9];
+    private final int[] alternate = new int[9 * 9];
+
+    void load(int[] puzzle) {
+        System.arraycopy(puzzle, 0, state, 0, state.length);
+        Kernels.candidateMasks(state, masks);
+    }
+
+    void place(int index, int digit) {
+        int bit = 1 << (digit - 1);
+        state[index] = digit;
+        masks[index] = 0;
+        for (int peer : Units.PEERS[index])
+            masks[peer] &= ~bit;
+    }
+
+    void eliminate(int index, int digits) {
+        masks[index] &= ~digits;
+    }
+
+    void apply(int unit, UnitDeduction deduction) {
+        int[] cells = Units.CELLS[unit];
+        for (int i = 0; i < 9; i++)
+            masks[cells[i]] &= ~deduction.removed[i];
+    }
+
+    boolean isSolved() {
+        for (int digit : state)
+            if (digit == 0)
+                return false;
+        return true;
+    }
+
+    // Index of the first cell with only one candidate left, or -1
+    int nakedSingle() {
+        for (int index = 0; index < masks.length; index++)
+            if (masks[index] != 0 && (masks[index] & (masks[index] - 1)) == 0)
+                return index;
+        return -1;
+    }
+
+    // First digit which can only appear in one place in a row/column/block, packed by packHiddenSingle(), or -1
+    int hiddenSingle() {
+        return Kernels.hiddenSingle(masks);
+    }
+
+    static int packHiddenSingle(int unit, int index, int digit) {
+        return unit << 11 | index << 4 | digit;
+    }
+
+    static int hiddenSingleUnit(int packed) {
+        return packed >>> 11;
+    }
+
+    static int hiddenSingleIndex(int packed) {
+        return (packed >>> 4) & 0x7F;
+    }
+
+    static int hiddenSingleDigit(int packed) {
+        return packed & 0xF;
+    }
+
+    UnitDeduction nakedPair() {
+        for (int unit = 0; unit < Units.COUNT; unit++) {
+            // Pairs do not depend on placed digits, leaving them out of the signature gives more hits
+            UnitDeduction deduction = UnitDeductionCache.SHARED.get(Rule.NAKED_PAIR, unitMasks(unit), 0);
+            if (deduction != null) {
+                deductionUnit = unit;
+                return deduction;
+            }
+        }
+        return null;
+    }
+
+    UnitDeduction hiddenGroup() {
+        for (int unit = 0; unit < Units.COUNT; unit++) {
+            UnitDeduction deduction = UnitDeductionCache.SHARED.get(Rule.HIDDEN_GROUP, unitMasks(unit), placedDigits(unit));
+            if (deduction != null) {
+                deductionUnit = unit;
+                return deduction;
+            }
+        }
+        return null;
+    }
+
+    // Final attempt of play(): two cells in a unit share the same two candidates and the board can be solved
+    // with their digits either way round. Board has multiple solutions, so the known solution may be picked.
+    // Returns 81 * index1 + index2 of the first such pair, or -1.
+    int arbitraryPair(int[] solution) {
+        for (int index1 = 0; index1 < masks.length - 1; index1++) {
+            if (Integer.bitCount(masks[index1]) != 2)
+                continue;
+
+            for (int index2 = index1 + 1; index2 < masks.length; index2++) {
+                if (masks[index2] != masks[index1] || !sharesUnit(index1, index2))
+                    continue;
+
+                System.arraycopy(state, 0, alternate, 0, alternate.length);
+                alternate[index1] = solution[index2];
+                alternate[index2] = solution[index1];
+
+                if (Solver.solve(alternate, null))
+                    return 81 * index1 + index2;
+            }
+        }
+        return -1;
+    }
+
+    static boolean sharesUnit(int index1, int index2) {
+        int[] units1 = Units.OF_CELL[index1];
+        int[] units2 = Units.OF_CELL[index2];
+        return units1[0] == units2[0] || units1[1] == units2[1] || units1[2] == units2[2];
+    }
+
+    int placedDigits(int unit) {
+        return Kernels.placedDigits(state, unit);
+    }
+
+    private int[] unitMasks(int unit) {
+        Kernels.unitMasks(masks, unit, unitMasks);
+        return unitMasks;
+    }
+}
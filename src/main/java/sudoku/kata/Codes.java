@@ -0,0 +1,32 @@
+package sudoku.kata;
+
+// Conversion between board states and the 81-digit codes printed by Program ("Code: ..."), with 0 for empty cells.
+final class Codes {
+
+    private Codes() {
+    }
+
+    static String toCode(int[] state) {
+        char[] code = new char[state.length];
+        for (int i = 0; i < state.length; i++)
+            code[i] = (char) ('0' + state[i]);
+        return new String(code);
+    }
+
+    // Also accepts '.' for empty cells
+    static int[] parse(CharSequence code) {
+        if (code.length() != 9 * 9)
+            throw new IllegalArgumentException("Code must have 81 digits: " + code);
+
+        int[] state = new int[9 * 9];
+        for (int i = 0; i < state.length; i++) {
+            char c = code.charAt(i);
+            if (c == '.')
+                continue;
+            if (c < '0' || c > '9')
+                throw new IllegalArgumentException("Invalid character '" + c + "' at position " + (i + 1) + ": " + code);
+            state[i] = c - '0';
+        }
+        return state;
+    }
+}
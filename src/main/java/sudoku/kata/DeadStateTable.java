@@ -0,0 +1,63 @@
+package sudoku.kata;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded, lock-free transposition table of board states (by Zobrist hash) that are known to have no solution.
+// Table is direct-mapped and always replaces: each slot holds one full 64-bit hash, so a lookup can only be
+// wrong on a complete 64-bit collision, and a lost entry only costs a repeated search.
+// Whether a partial board can be completed does not depend on the search that reached it,
+// hence one table is shared by all searches and threads in the process.
+// The table starts small and grows fourfold up to its maximum as entries are added, so a one-shot solve which only
+// records a few dead states does not allocate and clear the full table.
+final class DeadStateTable {
+
+    static final DeadStateTable SHARED = new DeadStateTable(1 << 12, 1 << 20);
+
+    private final int maxCapacity;
+    private volatile AtomicLongArray slots;
+    // Entries added since the table last grew; no longer counted once it is at its maximum
+    private final AtomicInteger added = new AtomicInteger();
+
+    DeadStateTable(int initialCapacity, int maxCapacity) {
+        if (initialCapacity <= 0 || Integer.bitCount(initialCapacity) != 1 || Integer.bitCount(maxCapacity) != 1 || maxCapacity < initialCapacity)
+            throw new IllegalArgumentException("Capacities must be powers of two, initial up to max: " + initialCapacity + ", " + maxCapacity);
+        this.slots = new AtomicLongArray(initialCapacity);
+        this.maxCapacity = maxCapacity;
+    }
+
+    // Hash 0 is the empty board, which is never dead, and also marks an empty slot
+    void add(long hash) {
+        if (hash == 0)
+            return;
+
+        AtomicLongArray current = slots;
+        current.setRelease(slot(hash, current.length()), hash);
+        if (current.length() < maxCapacity && added.incrementAndGet() > current.length() / 2)
+            grow(current);
+    }
+
+    boolean contains(long hash) {
+        AtomicLongArray current = slots;
+        return hash != 0 && current.getAcquire(slot(hash, current.length())) == hash;
+    }
+
+    // Entries added by other threads while copying may be lost, which only costs a repeated search
+    private synchronized void grow(AtomicLongArray current) {
+        if (slots != current)
+            return;
+
+        AtomicLongArray larger = new AtomicLongArray(Math.min(maxCapacity, current.length() * 4));
+        for (int i = 0; i < current.length(); i++) {
+            long hash = current.getAcquire(i);
+            if (hash != 0)
+                larger.setRelease(slot(hash, larger.length()), hash);
+        }
+        added.set(0);
+        slots = larger;
+    }
+
+    private static int slot(long hash, int capacity) {
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+}
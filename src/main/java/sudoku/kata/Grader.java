@@ -0,0 +1,88 @@
+package sudoku.kata;
+
+import java.util.Arrays;
+
+// Runs the rule chain of Program.play() without printing anything and reports which rules a puzzle needs.
+// Rules are tried in play()'s order, and the first one that applies is used at every step.
+// An instance keeps its buffers between puzzles and is not thread-safe; use one per thread.
+final class Grader {
+
+    private final CandidateBoard board = new CandidateBoard();
+    private final int[] uses = new int[Rule.values().length];
+    private int rules;
+    private int steps;
+
+    // Returns a mask of Rule bits used to solve the puzzle. Solution is only needed by the guessing rule;
+    // when null, it is found by backtracking, and a puzzle without solution is rejected.
+    int grade(int[] puzzle, int[] solution) {
+        if (solution == null) {
+            solution = puzzle.clone();
+            if (!Solver.solve(solution, null))
+                throw new IllegalArgumentException("Puzzle has no solution: " + Codes.toCode(puzzle));
+        }
+
+        board.load(puzzle);
+        steps = 0;
+        Arrays.fill(uses, 0);
+        rules = 0;
+        while (!board.isSolved()) {
+            Rule rule = step(solution);
+            if (rule == null)
+                break;
+            rules |= rule.bit();
+            uses[rule.ordinal()] += 1;
+            steps += 1;
+        }
+        return rules;
+    }
+
+    // Whether the last graded puzzle was solved completely
+    boolean isSolved() {
+        return board.isSolved();
+    }
+
+    // Rules used on the last graded puzzle, as returned by grade()
+    int rules() {
+        return rules;
+    }
+
+    // Number of deductions made on the last graded puzzle
+    int steps() {
+        return steps;
+    }
+
+    // Number of times the rule was applied on the last graded puzzle
+    int uses(Rule rule) {
+        return uses[rule.ordinal()];
+    }
+
+    private Rule step(int[] solution) {
+        int index = board.nakedSingle();
+        if (index >= 0) {
+            board.place(index, Integer.numberOfTrailingZeros(board.masks[index]) + 1);
+            return Rule.NAKED_SINGLE;
+        }
+
+        int hiddenSingle = board.hiddenSingle();
+        if (hiddenSingle >= 0) {
+            board.place(CandidateBoard.hiddenSingleIndex(hiddenSingle), CandidateBoard.hiddenSingleDigit(hiddenSingle));
+            return Rule.HIDDEN_SINGLE;
+        }
+
+        UnitDeduction deduction = board.nakedPair();
+        if (deduction == null)
+            deduction = board.hiddenGroup();
+        if (deduction != null) {
+            board.apply(board.deductionUnit, deduction);
+            return deduction.rule;
+        }
+
+        int pair = board.arbitraryPair(solution);
+        if (pair >= 0) {
+            board.place(pair / 81, solution[pair / 81]);
+            board.place(pair % 81, solution[pair % 81]);
+            return Rule.GUESS;
+        }
+        return null;
+    }
+}
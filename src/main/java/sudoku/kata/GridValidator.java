@@ -0,0 +1,183 @@
+package sudoku.kata;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Checks submitted completed grids against their puzzles.
+// A grid is valid when it has a digit 1-9 in every cell, keeps every clue of the puzzle, and every unit contains
+// each digit exactly once, i.e. OR of the digit bits of its nine cells is all ones.
+// Lines are parsed from bytes into buffers owned by the validator, so validating allocates nothing per grid.
+// An instance is not thread-safe.
+//
+// Usage: validate [--in file] [--out file]
+// Input lines are a puzzle code and a submitted grid code separated by a tab, space or comma.
+// Output has one line per input line: "valid", "invalid <reason>" or "malformed".
+final class GridValidator {
+
+    static final int VALID = 0;
+    static final int MALFORMED = 1;
+    static final int CLUE_MISMATCH = 2;     // Detail is the cell index
+    static final int DUPLICATE = 3;         // Detail is the unit
+
+    private static final int ALL_ONES = (1 << 9) - 1;
+    private static final byte[] VALID_TEXT = "valid\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MALFORMED_TEXT = "malformed\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] UNIT_TEXT = new byte[Units.COUNT][];
+    private static final byte[][] CELL_TEXT = new byte[9 * 9][];
+
+    static {
+        for (int unit = 0; unit < Units.COUNT; unit++)
+            UNIT_TEXT[unit] = ("invalid: " + Units.describe(unit) + " repeats a digit\n").getBytes(StandardCharsets.US_ASCII);
+        for (int index = 0; index < 9 * 9; index++)
+            CELL_TEXT[index] = ("invalid: clue at (" + (index / 9 + 1) + ", " + (index % 9 + 1) + ") changed\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private final int[] puzzle = new int[9 * 9];
+    private final int[] grid = new int[9 * 9];
+    private int detail;
+    private long lines;
+
+    // Returns VALID, MALFORMED, CLUE_MISMATCH or DUPLICATE; detail() tells the cell or unit
+    int validate(int[] puzzle, int[] grid) {
+        for (int index = 0; index < grid.length; index++) {
+            if (grid[index] < 1 || grid[index] > 9)
+                return MALFORMED;
+            if (puzzle[index] != 0 && puzzle[index] != grid[index]) {
+                detail = index;
+                return CLUE_MISMATCH;
+            }
+        }
+
+        for (int unit = 0; unit < Units.COUNT; unit++)
+            if (Kernels.placedDigits(grid, unit) != ALL_ONES) {
+                detail = unit;
+                return DUPLICATE;
+            }
+
+        return VALID;
+    }
+
+    // Validates a line held in bytes [start, end)
+    int validate(byte[] line, int start, int end) {
+        if (end - start != 2 * 9 * 9 + 1 || !isSeparator(line[start + 9 * 9]))
+            return MALFORMED;
+        if (!parse(line, start, puzzle, '0') || !parse(line, start + 9 * 9 + 1, grid, '1'))
+            return MALFORMED;
+        return validate(puzzle, grid);
+    }
+
+    int detail() {
+        return detail;
+    }
+
+    // Validates every line of the input and writes a verdict line per input line. Returns number of valid grids.
+    long validate(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        int length = 0;
+        long valid = 0;
+        // Skipping the rest of a line that already got its verdict
+        boolean discarding = false;
+
+        while (true) {
+            int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0)
+                break;
+            length += read;
+
+            int start = 0;
+            for (int i = 0; i < length; i++)
+                if (buffer[i] == '\n') {
+                    if (discarding)
+                        discarding = false;
+                    else if (writeVerdict(buffer, start, i, out))
+                        valid += 1;
+                    start = i + 1;
+                }
+
+            // Keep the incomplete last line; a line longer than the buffer is sure to be malformed
+            length -= start;
+            System.arraycopy(buffer, start, buffer, 0, length);
+            if (length == buffer.length) {
+                if (!discarding) {
+                    out.write(MALFORMED_TEXT);
+                    lines += 1;
+                    discarding = true;
+                }
+                length = 0;
+            }
+        }
+
+        if (length > 0 && !discarding && writeVerdict(buffer, 0, length, out))
+            valid += 1;
+        return valid;
+    }
+
+    private boolean writeVerdict(byte[] buffer, int start, int end, OutputStream out) throws IOException {
+        if (end > start && buffer[end - 1] == '\r')
+            end -= 1;
+        lines += 1;
+
+        switch (validate(buffer, start, end)) {
+            case VALID:
+                out.write(VALID_TEXT);
+                return true;
+            case CLUE_MISMATCH:
+                out.write(CELL_TEXT[detail]);
+                return false;
+            case DUPLICATE:
+                out.write(UNIT_TEXT[detail]);
+                return false;
+            default:
+                out.write(MALFORMED_TEXT);
+                return false;
+        }
+    }
+
+    // Digits from lowest upwards, '.' counts as 0 where 0 is allowed
+    private static boolean parse(byte[] line, int start, int[] state, char lowest) {
+        for (int i = 0; i < state.length; i++) {
+            int c = line[start + i];
+            if (c == '.' && lowest == '0')
+                c = '0';
+            if (c < lowest || c > '9')
+                return false;
+            state[i] = c - '0';
+        }
+        return true;
+    }
+
+    private static boolean isSeparator(byte c) {
+        return c == '\t' || c == ' ' || c == ',';
+    }
+
+    // Lines validated so far
+    long lines() {
+        return lines;
+    }
+
+    static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        String in = options.get("in", null);
+        String out = options.get("out", null);
+
+        InputStream input = in != null ? new FileInputStream(in) : System.in;
+        OutputStream output = new BufferedOutputStream(out != null ? new FileOutputStream(out) : System.out, 1 << 16);
+
+        long start = System.nanoTime();
+        GridValidator validator = new GridValidator();
+        long valid = validator.validate(input, output);
+        output.flush();
+        if (in != null)
+            input.close();
+        if (out != null)
+            output.close();
+
+        System.err.format("%d grids checked, %d valid, %d invalid in %d ms%n",
+                validator.lines(), valid, validator.lines() - valid, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,242 @@
+package sudoku.kata;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Searches for the hardest puzzles by simulated annealing over clue sets, on several threads.
+// Each run starts from a new solved board and a puzzle reduced like play() does, then repeatedly removes, adds back
+// or moves a clue, keeping changes by the usual annealing rule. Candidates must be solved by the rule chain
+// and are scored by how often each rule is needed, harder rules weighing more.
+//
+// What carries over between neighbours: with --unique, the current puzzle is known to have a single solution, so a
+// neighbour which only adds a clue stays unique without any search, and one which clears a cell only has to rule out
+// solutions with another digit in that cell (Solver.hasSolutionWithout) instead of counting solutions from scratch.
+// Grading is not incremental: every neighbour runs the whole rule chain again from its clues, since one changed clue
+// can change every later step. It only reuses the thread's Grader buffers, the known solution and the shared
+// dead-state and unit caches.
+//
+// By default (--unique true) candidates must have a single solution. Guessing never applies to those, so the score
+// only reflects the logical rules. With --unique false, guessing counts once per puzzle and every extra solution
+// costs more than a guess gains: otherwise removing clues until a puzzle is ambiguous would score highest,
+// as every guess is another arbitrary pair rather than a harder deduction.
+//
+// Usage: extreme [--threads N] [--duration-s N] [--iterations N] [--count N] [--min-clues N]
+//                [--temperature X] [--unique true|false] [--out file]
+// Output lines are: puzzle code, solution code, score, rules used, hardest first.
+final class HardPuzzleSearch {
+
+    // Score of one use of each rule, in Rule order
+    private static final int[] WEIGHTS = {1, 3, 20, 40, 100};
+
+    // Passed as the cleared cell for a puzzle whose uniqueness is not known from a previous candidate
+    private static final int UNKNOWN = -2;
+
+    // Solutions counted per candidate with --unique false, and the score each one beyond the first costs
+    private static final int SOLUTION_LIMIT = 16;
+    private static final int EXTRA_SOLUTION_PENALTY = 2 * WEIGHTS[Rule.GUESS.ordinal()];
+
+    private static final class Candidate {
+        final int[] puzzle;
+        final int[] solution;
+        final int score;
+        final int rules;
+
+        Candidate(int[] puzzle, int[] solution, int score, int rules) {
+            this.puzzle = puzzle;
+            this.solution = solution;
+            this.score = score;
+            this.rules = rules;
+        }
+    }
+
+    private final int iterations;
+    private final int minClues;
+    private final boolean unique;
+    private final double initialTemperature;
+    private final int count;
+
+    // Hardest puzzles found so far, easiest on top
+    private final PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingInt((Candidate c) -> c.score));
+    private final PackedGridSet seen = new PackedGridSet(16L << 20);
+    private final AtomicLong evaluated = new AtomicLong();
+
+    HardPuzzleSearch(Options options) {
+        iterations = options.getInt("iterations", 20000);
+        minClues = options.getInt("min-clues", 17);
+        unique = Boolean.parseBoolean(options.get("unique", "true"));
+        initialTemperature = Double.parseDouble(options.get("temperature", "20"));
+        count = options.getInt("count", 20);
+    }
+
+    void run(int threads, long durationMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + durationMillis;
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                Grader grader = new Grader();
+                Random rng = ThreadLocalRandom.current();
+                while (System.currentTimeMillis() < deadline)
+                    anneal(grader, rng, deadline);
+            }, "extreme-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long start = System.currentTimeMillis();
+        for (Thread worker : workers)
+            while (worker.isAlive()) {
+                worker.join(5000);
+                synchronized (best) {
+                    long seconds = Math.max(1, (System.currentTimeMillis() - start) / 1000);
+                    System.err.format("%d s: %d candidates scored (%d/s), %d kept, scores %d..%d%n",
+                            seconds, evaluated.get(), evaluated.get() / seconds, best.size(),
+                            best.isEmpty() ? 0 : best.peek().score,
+                            best.stream().mapToInt(c -> c.score).max().orElse(0));
+                }
+            }
+    }
+
+    // One annealing run from a fresh solved board
+    private void anneal(Grader grader, Random rng, long deadline) {
+        int[] solution = Solver.solvedBoard(rng);
+        int[] puzzle = Pipeline.removeDigits(solution, rng, 30, 6);
+        int score = score(grader, puzzle, solution, UNKNOWN);
+        if (score < 0)
+            return;
+
+        int[] bestPuzzle = puzzle.clone();
+        int bestScore = score;
+        int bestRules = grader.rules();
+
+        for (int iteration = 0; iteration < iterations && System.currentTimeMillis() < deadline; iteration++) {
+            double temperature = initialTemperature * (1 - (double) iteration / iterations) + 1e-3;
+
+            // Remove a clue, add one back from the solution, or both
+            int move = rng.nextInt(3);
+            int removed = move != 1 ? randomCell(puzzle, rng, true) : -1;
+            int added = move != 0 ? randomCell(puzzle, rng, false) : -1;
+            if (removed >= 0)
+                puzzle[removed] = 0;
+            if (added >= 0)
+                puzzle[added] = solution[added];
+
+            int candidateScore = clues(puzzle) >= minClues ? score(grader, puzzle, solution, removed) : -1;
+            boolean accept = candidateScore >= 0 &&
+                    (candidateScore >= score || rng.nextDouble() < Math.exp((candidateScore - score) / temperature));
+
+            if (accept) {
+                score = candidateScore;
+                if (score > bestScore) {
+                    System.arraycopy(puzzle, 0, bestPuzzle, 0, puzzle.length);
+                    bestScore = score;
+                    bestRules = grader.rules();
+                }
+            } else {
+                if (removed >= 0)
+                    puzzle[removed] = solution[removed];
+                if (added >= 0)
+                    puzzle[added] = 0;
+            }
+        }
+
+        offer(new Candidate(bestPuzzle, solution, bestScore, bestRules));
+    }
+
+    // Difficulty of the puzzle, or -1 when the rule chain cannot solve it or, with --unique, it is ambiguous.
+    // Cleared is the cell emptied since the last accepted candidate, -1 when none was, or UNKNOWN.
+    private int score(Grader grader, int[] puzzle, int[] solution, int cleared) {
+        evaluated.incrementAndGet();
+        int solutions;
+        if (!unique)
+            solutions = Solver.countSolutions(puzzle, SOLUTION_LIMIT);
+        else if (isUnique(puzzle, solution, cleared))
+            solutions = 1;
+        else
+            return -1;
+
+        grader.grade(puzzle, solution);
+        if (!grader.isSolved())
+            return -1;
+
+        int score = 0;
+        for (Rule rule : Rule.values())
+            score += WEIGHTS[rule.ordinal()] * (rule == Rule.GUESS ? Math.min(1, grader.uses(rule)) : grader.uses(rule));
+        return Math.max(0, score - EXTRA_SOLUTION_PENALTY * (solutions - 1));
+    }
+
+    // Adding a clue from the solution keeps a unique puzzle unique, as does clearing a cell and adding the clue back
+    private static boolean isUnique(int[] puzzle, int[] solution, int cleared) {
+        if (cleared == UNKNOWN)
+            return Solver.countSolutions(puzzle, 2) == 1;
+        if (cleared < 0 || puzzle[cleared] != 0)
+            return true;
+        return !Solver.hasSolutionWithout(puzzle, cleared, solution[cleared]);
+    }
+
+    private void offer(Candidate candidate) {
+        synchronized (best) {
+            if (best.size() >= count && candidate.score <= best.peek().score)
+                return;
+            if (!seen.add(candidate.puzzle))
+                return;
+            best.add(candidate);
+            if (best.size() > count)
+                best.poll();
+        }
+    }
+
+    void write(PrintWriter out) {
+        List<Candidate> result;
+        synchronized (best) {
+            result = new ArrayList<>(best);
+        }
+        result.sort(Comparator.comparingInt((Candidate c) -> c.score).reversed());
+        for (Candidate candidate : result)
+            out.println(Codes.toCode(candidate.puzzle) + '\t' + Codes.toCode(candidate.solution) + '\t'
+                    + candidate.score + '\t' + Rule.describe(candidate.rules));
+        out.flush();
+    }
+
+    private static int randomCell(int[] puzzle, Random rng, boolean filled) {
+        int start = rng.nextInt(puzzle.length);
+        for (int i = 0; i < puzzle.length; i++) {
+            int index = (start + i) % puzzle.length;
+            if ((puzzle[index] != 0) == filled)
+                return index;
+        }
+        return -1;
+    }
+
+    private static int clues(int[] puzzle) {
+        int clues = 0;
+        for (int digit : puzzle)
+            if (digit != 0)
+                clues += 1;
+        return clues;
+    }
+
+    static void main(String[] args) throws IOException, InterruptedException {
+        Options options = new Options(args);
+        HardPuzzleSearch search = new HardPuzzleSearch(options);
+        search.run(options.getInt("threads", Runtime.getRuntime().availableProcessors()),
+                options.getLong("duration-s", 60) * 1000);
+
+        String out = options.get("out", null);
+        if (out == null) {
+            search.write(new PrintWriter(new OutputStreamWriter(System.out)));
+        } else {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(out))) {
+                search.write(writer);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package sudoku.kata;
+
+// Next logical deduction offered by a HintSession, described the same way play() prints its steps
+public final class Hint {
+
+    final Rule rule;
+    final String message;
+
+    // Cells and digits to place, as (index, digit) pairs; empty for eliminations
+    final int[] placements;
+
+    // Unit and eliminations of the pair and group rules; null for placements
+    final int unit;
+    final UnitDeduction deduction;
+
+    Hint(Rule rule, String message, int[] placements, int unit, UnitDeduction deduction) {
+        this.rule = rule;
+        this.message = message;
+        this.placements = placements;
+        this.unit = unit;
+        this.deduction = deduction;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,188 @@
+package sudoku.kata;
+
+// Interactive game state between user moves: the board, its candidate masks and the solution.
+// Moves only update the candidates of the affected cell and its peers, and a hint is a single pass of the rule chain
+// over the current masks, so neither depends on how many moves were made.
+// A session belongs to one player and is not thread-safe.
+public final class HintSession {
+
+    private final CandidateBoard board = new CandidateBoard();
+    private final int[] solution;
+
+    // Hint for the current board, computed on first request after a change
+    private Hint hint;
+
+    public HintSession(String puzzleCode) {
+        int[] puzzle = Codes.parse(puzzleCode);
+        solution = puzzle.clone();
+        if (!Solver.solve(solution, null))
+            throw new IllegalArgumentException("Puzzle has no solution: " + puzzleCode);
+        board.load(puzzle);
+    }
+
+    // Row and column are 1-based, as in the printed messages
+    public void place(int row, int col, int digit) {
+        int index = index(row, col);
+        if (board.state[index] != 0)
+            throw new IllegalArgumentException("(" + row + ", " + col + ") already contains " + board.state[index] + ".");
+        if (digit < 1 || digit > 9 || (board.masks[index] & (1 << (digit - 1))) == 0)
+            throw new IllegalArgumentException("(" + row + ", " + col + ") cannot contain " + digit + ".");
+
+        board.place(index, digit);
+        hint = null;
+    }
+
+    public void eliminate(int row, int col, int digit) {
+        if (digit < 1 || digit > 9)
+            throw new IllegalArgumentException("Invalid digit: " + digit);
+        board.eliminate(index(row, col), 1 << (digit - 1));
+        hint = null;
+    }
+
+    public boolean isSolved() {
+        return board.isSolved();
+    }
+
+    // Whether all placements agree with the solution and no solution digit was eliminated
+    public boolean isOnTrack() {
+        for (int index = 0; index < solution.length; index++) {
+            int digit = board.state[index];
+            if (digit != 0 ? digit != solution[index] : (board.masks[index] & (1 << (solution[index] - 1))) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    public String getCode() {
+        return Codes.toCode(board.state);
+    }
+
+    // Next deduction for the current board, or null when no rule applies
+    public Hint nextHint() {
+        if (hint == null)
+            hint = findHint();
+        return hint;
+    }
+
+    // Makes the move described by the hint, which must be the one nextHint() returned for the current board.
+    // A hint from before a later move may target a filled cell or a digit that is no longer a candidate.
+    public void apply(Hint hint) {
+        if (hint == null || hint != this.hint)
+            throw new IllegalArgumentException("Hint does not apply to the current board, ask for a new one.");
+        for (int i = 0; i < hint.placements.length; i += 2)
+            board.place(hint.placements[i], hint.placements[i + 1]);
+        if (hint.deduction != null)
+            board.apply(hint.unit, hint.deduction);
+        this.hint = null;
+    }
+
+    private Hint findHint() {
+        int index = board.nakedSingle();
+        if (index >= 0) {
+            int digit = Integer.numberOfTrailingZeros(board.masks[index]) + 1;
+            return new Hint(Rule.NAKED_SINGLE, cell(index) + " can only contain " + digit + ".",
+                    new int[]{index, digit}, -1, null);
+        }
+
+        int hiddenSingle = board.hiddenSingle();
+        if (hiddenSingle >= 0) {
+            int unit = CandidateBoard.hiddenSingleUnit(hiddenSingle);
+            index = CandidateBoard.hiddenSingleIndex(hiddenSingle);
+            int digit = CandidateBoard.hiddenSingleDigit(hiddenSingle);
+            String description = Units.describe(unit);
+            String message = Character.toUpperCase(description.charAt(0)) + description.substring(1)
+                    + " can contain " + digit + " only at " + cell(index) + ".";
+            return new Hint(Rule.HIDDEN_SINGLE, message, new int[]{index, digit}, -1, null);
+        }
+
+        UnitDeduction deduction = board.nakedPair();
+        if (deduction != null)
+            return new Hint(Rule.NAKED_PAIR, pairMessage(board.deductionUnit, deduction), new int[0], board.deductionUnit, deduction);
+
+        deduction = board.hiddenGroup();
+        if (deduction != null)
+            return new Hint(Rule.HIDDEN_GROUP, groupMessage(board.deductionUnit, deduction), new int[0], board.deductionUnit, deduction);
+
+        // Guessing relies on the solution, which only holds while the player has not gone astray
+        if (isOnTrack()) {
+            int pair = board.arbitraryPair(solution);
+            if (pair >= 0)
+                return guessHint(pair / 81, pair % 81);
+        }
+
+        return null;
+    }
+
+    private static String pairMessage(int unit, UnitDeduction deduction) {
+        int[] cells = Units.CELLS[unit];
+        StringBuilder message = new StringBuilder("Values " + digits(deduction.digits, " and ") + " in " + Units.describe(unit) + " are in cells ");
+
+        String separator = "";
+        for (int i = 0; i < 9; i++)
+            if ((deduction.positions & (1 << i)) != 0) {
+                message.append(separator).append(cell(cells[i]));
+                separator = " and ";
+            }
+        message.append('.');
+
+        for (int i = 0; i < 9; i++)
+            if (deduction.removed[i] != 0)
+                message.append(System.lineSeparator())
+                        .append(digits(deduction.removed[i], ", ")).append(" cannot appear in ").append(cell(cells[i])).append('.');
+
+        return message.toString();
+    }
+
+    private static String groupMessage(int unit, UnitDeduction deduction) {
+        int[] cells = Units.CELLS[unit];
+        StringBuilder message = new StringBuilder("In " + Units.describe(unit) + " values " + digits(deduction.digits, ", ") + " appear only in cells");
+
+        for (int i = 0; i < 9; i++)
+            if ((deduction.positions & (1 << i)) != 0)
+                message.append(' ').append(cell(cells[i]));
+        message.append(" and other values cannot appear in those cells.");
+
+        for (int i = 0; i < 9; i++)
+            if (deduction.removed[i] != 0)
+                message.append(System.lineSeparator())
+                        .append(digits(deduction.removed[i], ", ")).append(" cannot appear in cell ").append(cell(cells[i])).append('.');
+
+        return message.toString();
+    }
+
+    private Hint guessHint(int index1, int index2) {
+        int mask = board.masks[index1];
+        int lower = Integer.numberOfTrailingZeros(mask) + 1;
+        int upper = 32 - Integer.numberOfLeadingZeros(mask);
+
+        int[] units1 = Units.OF_CELL[index1];
+        int[] units2 = Units.OF_CELL[index2];
+        int unit = units1[0] == units2[0] ? units1[0] : units1[1] == units2[1] ? units1[1] : units1[2];
+
+        String message = "Guessing that " + lower + " and " + upper + " are arbitrary in " + Units.describe(unit)
+                + " (multiple solutions): Pick " + solution[index1] + "->" + cell(index1) + ", " + solution[index2] + "->" + cell(index2) + ".";
+        return new Hint(Rule.GUESS, message, new int[]{index1, solution[index1], index2, solution[index2]}, -1, null);
+    }
+
+    private static int index(int row, int col) {
+        if (row < 1 || row > 9 || col < 1 || col > 9)
+            throw new IllegalArgumentException("Invalid cell: (" + row + ", " + col + ")");
+        return 9 * (row - 1) + col - 1;
+    }
+
+    private static String cell(int index) {
+        return "(" + (index / 9 + 1) + ", " + (index % 9 + 1) + ")";
+    }
+
+    // Digits in the mask in ascending order
+    private static String digits(int mask, String separator) {
+        StringBuilder result = new StringBuilder();
+        for (int digit = 1; mask != 0; digit++, mask >>= 1)
+            if ((mask & 1) != 0) {
+                if (result.length() > 0)
+                    result.append(separator);
+                result.append(digit);
+            }
+        return result.toString();
+    }
+}
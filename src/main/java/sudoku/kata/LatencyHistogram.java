@@ -0,0 +1,63 @@
+package sudoku.kata;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Concurrent log-linear histogram of latencies in nanoseconds.
+// Values are grouped by power of two, and every power of two is split into 64 linear sub-buckets,
+// which keeps the relative error of reported percentiles below 2%. Values above 2^40 ns (~18 minutes) are clamped.
+final class LatencyHistogram {
+
+    // Values below 2^PRECISION_BITS have a bucket each; above that, each power of two has HALF buckets
+    private static final int PRECISION_BITS = 7;
+    private static final int HALF = 1 << (PRECISION_BITS - 1);
+    private static final int MAX_BITS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(HALF * (MAX_BITS - PRECISION_BITS + 2));
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, (1L << MAX_BITS) - 1));
+        counts.incrementAndGet(bucket(value));
+        total.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    // Upper bound of the bucket holding the given percentile (0..100)
+    long percentile(double percentile) {
+        long count = total.get();
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank)
+                return Math.min(upperBound(bucket), max.get());
+        }
+        return max.get();
+    }
+
+    private static int bucket(long value) {
+        int magnitude = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - PRECISION_BITS);
+        return HALF * magnitude + (int) (value >>> magnitude);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < 2 * HALF)
+            return bucket;
+        int magnitude = bucket / HALF - 1;
+        long subBucket = bucket - HALF * magnitude;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
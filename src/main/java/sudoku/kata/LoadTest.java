@@ -0,0 +1,176 @@
+package sudoku.kata;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Replays a puzzle corpus against the solver with a fixed number of concurrent workers and records latency histograms.
+//
+// Usage: loadtest --corpus file [--target solve|grade|http://host:port/path] [--concurrency N] [--rate N]
+//                 [--duration-s N] [--warmup-s N]
+// Corpus lines start with a puzzle code; anything after the first tab is ignored, so pipeline output can be used.
+// Target solve runs the backtracking Solver, grade runs the rule chain, and a URL receives the code as a POST body.
+//
+// With --rate, requests are scheduled at fixed intervals and latency is measured from the scheduled start,
+// so time spent waiting behind a slow request is counted (coordinated omission correction).
+// Without it, each worker sends its next request as soon as the previous one completes.
+final class LoadTest {
+
+    private interface Target {
+        void call(int[] puzzle, String code) throws Exception;
+    }
+
+    private final List<int[]> puzzles = new ArrayList<>();
+    private final List<String> codes = new ArrayList<>();
+    private final String targetName;
+    // Creates the target for one worker, which may hold per-thread state such as a Grader
+    private final Supplier<Target> targets;
+    private final int concurrency;
+    private final long intervalNanos;
+    private final long durationNanos;
+    private final long warmupNanos;
+
+    private final AtomicLong nextRequest = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final AtomicReference<LatencyHistogram> intervalLatency = new AtomicReference<>(new LatencyHistogram());
+    private long start;
+
+    LoadTest(Options options) throws IOException {
+        for (String line : Files.readAllLines(Paths.get(options.get("corpus", "puzzles.txt")))) {
+            int tab = line.indexOf('\t');
+            String code = (tab >= 0 ? line.substring(0, tab) : line).trim();
+            if (code.isEmpty())
+                continue;
+            puzzles.add(Codes.parse(code));
+            codes.add(code);
+        }
+        if (puzzles.isEmpty())
+            throw new IllegalArgumentException("Corpus is empty");
+
+        targetName = options.get("target", "solve");
+        targets = targets(targetName);
+        concurrency = options.getInt("concurrency", Runtime.getRuntime().availableProcessors());
+        int rate = options.getInt("rate", 0);
+        intervalNanos = rate > 0 ? 1_000_000_000L / rate : 0;
+        durationNanos = options.getLong("duration-s", 30) * 1_000_000_000L;
+        warmupNanos = options.getLong("warmup-s", 5) * 1_000_000_000L;
+    }
+
+    void run() throws InterruptedException {
+        start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(this::work, "load-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+
+        System.err.format("Target %s, %d workers, %s, corpus of %d puzzles%n", targetName, concurrency,
+                intervalNanos > 0 ? (1_000_000_000L / intervalNanos) + " requests/s" : "closed loop", puzzles.size());
+
+        long second = 0;
+        while (workers.get(0).isAlive()) {
+            workers.get(0).join(1000);
+            second += 1;
+            LatencyHistogram interval = intervalLatency.getAndSet(new LatencyHistogram());
+            System.err.format("%4ds %8d req/s  p50 %s  p99 %s  max %s%n", second, interval.count(),
+                    micros(interval.percentile(50)), micros(interval.percentile(99)), micros(interval.max()));
+        }
+        for (Thread worker : workers)
+            worker.join();
+
+        long measured = Math.max(1, System.nanoTime() - start - warmupNanos);
+        System.out.format("Requests: %d (%d errors), throughput %.1f/s after %d s warmup%n",
+                latency.count(), errors.get(), latency.count() * 1e9 / measured, warmupNanos / 1_000_000_000L);
+        print("Latency", latency);
+        print("Service time", serviceTime);
+    }
+
+    private void work() {
+        Target target = targets.get();
+        long end = start + durationNanos;
+        while (true) {
+            long request = nextRequest.getAndIncrement();
+            long scheduled = intervalNanos > 0 ? start + request * intervalNanos : System.nanoTime();
+            if (scheduled >= end)
+                break;
+
+            long now;
+            while ((now = System.nanoTime()) < scheduled)
+                LockSupport.parkNanos(scheduled - now);
+
+            int corpusIndex = (int) (request % puzzles.size());
+            try {
+                target.call(puzzles.get(corpusIndex), codes.get(corpusIndex));
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+
+            long completed = System.nanoTime();
+            if (scheduled - start >= warmupNanos) {
+                latency.record(completed - scheduled);
+                serviceTime.record(completed - now);
+            }
+            intervalLatency.get().record(completed - scheduled);
+        }
+    }
+
+    // Resolved before any worker starts, so a mistyped target fails once instead of in every worker
+    private static Supplier<Target> targets(String targetName) {
+        if (targetName.startsWith("http")) {
+            URI uri = URI.create(targetName);
+            if ((!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) || uri.getHost() == null)
+                throw new IllegalArgumentException("Target URL needs an http or https scheme and a host: " + targetName);
+
+            HttpClient httpClient = HttpClient.newHttpClient();
+            Target target = (puzzle, code) -> {
+                HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(code)).build();
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 != 2)
+                    throw new IOException("HTTP " + response.statusCode());
+            };
+            return () -> target;
+        }
+
+        switch (targetName) {
+            case "solve":
+                return () -> (puzzle, code) -> {
+                    if (!Solver.solve(puzzle.clone(), null))
+                        throw new IllegalStateException("No solution: " + code);
+                };
+            case "grade":
+                return () -> {
+                    Grader grader = new Grader();
+                    return (puzzle, code) -> grader.grade(puzzle, null);
+                };
+            default:
+                throw new IllegalArgumentException("Unknown target: " + targetName + " (expected solve, grade or an http URL)");
+        }
+    }
+
+    private static void print(String title, LatencyHistogram histogram) {
+        System.out.format("%-13s p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n", title,
+                micros(histogram.percentile(50)), micros(histogram.percentile(90)), micros(histogram.percentile(99)),
+                micros(histogram.percentile(99.9)), micros(histogram.max()));
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / 1000.0);
+    }
+
+    static void main(String[] args) throws IOException, InterruptedException {
+        new LoadTest(new Options(args)).run();
+    }
+}
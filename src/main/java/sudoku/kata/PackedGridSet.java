@@ -0,0 +1,100 @@
+package sudoku.kata;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free, open-addressed set of boards stored off-heap, for rejecting duplicates while generating.
+// Each board is reduced to a 64-bit fingerprint of its packed encoding (81 cells of 4 bits) and the set keeps
+// only fingerprints, 8 bytes per slot in direct buffers, so its size does not add to GC work.
+// Equal boards always have equal fingerprints, so duplicates are never admitted; a fingerprint collision can only
+// reject a board which was in fact new.
+// Slots are claimed by compare-and-set and never removed. Direct memory is limited by -XX:MaxDirectMemorySize.
+final class PackedGridSet {
+
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // 2^27 slots of 8 bytes, i.e. 1 GiB per buffer
+    private static final int SEGMENT_BITS = 27;
+
+    // Probing this many slots without finding a free one means the set is too full
+    private static final int MAX_PROBES = 1 << 12;
+
+    private final ByteBuffer[] segments;
+    private final long capacity;
+    private final LongAdder size = new LongAdder();
+
+    // Capacity is the largest power of two number of slots fitting into the ceiling
+    PackedGridSet(long maxBytes) {
+        long slots = Long.highestOneBit(Math.max(1, maxBytes / Long.BYTES));
+        if (slots < 1 << 10)
+            throw new IllegalArgumentException("Memory ceiling too small: " + maxBytes + " bytes");
+
+        capacity = slots;
+        int segmentSlots = (int) Math.min(slots, 1L << SEGMENT_BITS);
+        segments = new ByteBuffer[(int) (slots / segmentSlots)];
+        for (int i = 0; i < segments.length; i++)
+            segments[i] = ByteBuffer.allocateDirect(segmentSlots * Long.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    // Returns false if the board was already in the set
+    boolean add(int[] state) {
+        long fingerprint = fingerprint(state);
+        long slot = fingerprint & (capacity - 1);
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            ByteBuffer segment = segments[(int) (slot >>> SEGMENT_BITS)];
+            int offset = (int) (slot & ((1L << SEGMENT_BITS) - 1)) * Long.BYTES;
+
+            long current = (long) SLOT.getVolatile(segment, offset);
+            if (current == 0) {
+                if (SLOT.compareAndSet(segment, offset, 0L, fingerprint)) {
+                    size.increment();
+                    return true;
+                }
+                current = (long) SLOT.getVolatile(segment, offset);
+            }
+            if (current == fingerprint)
+                return false;
+
+            slot = (slot + 1) & (capacity - 1);
+        }
+
+        throw new IllegalStateException("Set of " + size() + " boards is full, raise its memory ceiling");
+    }
+
+    long size() {
+        return size.sum();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("dedupe set: %d boards, %.1f%% of %d slots (%d MiB off-heap)",
+                size(), 100.0 * size() / capacity, capacity, capacity * Long.BYTES >> 20);
+    }
+
+    // Packs 16 cells per long and mixes each into the hash, never returns 0 (the empty slot)
+    static long fingerprint(int[] state) {
+        long hash = 0x243F6A8885A308D3L;
+        for (int start = 0; start < state.length; start += 16) {
+            long packed = 0;
+            for (int i = start; i < Math.min(start + 16, state.length); i++)
+                packed = packed << 4 | state[i];
+            hash = mix(hash ^ packed) + start;
+        }
+        hash = mix(hash);
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
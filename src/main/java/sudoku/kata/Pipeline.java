@@ -0,0 +1,292 @@
+package sudoku.kata;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Generates puzzles in four stages connected by bounded queues:
+// generate (solved board) -> reduce (remove digits) -> grade (solve by rules) -> write (one line per puzzle).
+// Each stage has its own worker count and input queue capacity; a full queue blocks the stage feeding it.
+//
+// Usage: pipeline [--count N] [--<stage>-workers N] [--<stage>-queue N] [--remaining-digits N]
+//                 [--max-removed-per-block N] [--dedupe-mb N] [--report-ms N] [--out file]
+// Output lines are: puzzle code, solution code, rules used, separated by tabs.
+// Solved boards and puzzles already produced in this run are rejected inline through a PackedGridSet of at most
+// --dedupe-mb MiB (0 turns it off), so the output contains no duplicates.
+// Per-stage throughput and queue occupancy are reported to stderr.
+// A worker throwing cancels the whole run: every thread is interrupted and run() rethrows the first failure.
+final class Pipeline {
+
+    // Marks the end of input for one worker
+    private static final Object END = new Object();
+
+    static final class Item {
+        final int[] solution;
+        int[] puzzle;
+        int rules;
+        boolean solved;
+
+        Item(int[] solution) {
+            this.solution = solution;
+        }
+    }
+
+    private static final class Stage {
+        final String name;
+        final int workers;
+        final BlockingQueue<Object> input;
+        final Supplier<Function<Item, Item>> worker;
+        final LongAdder processed = new LongAdder();
+        final AtomicInteger running;
+
+        Stage(String name, int workers, int queueCapacity, Supplier<Function<Item, Item>> worker) {
+            if (workers <= 0)
+                throw new IllegalArgumentException("Stage " + name + " needs at least one worker");
+            this.name = name;
+            this.workers = workers;
+            this.input = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : null;
+            this.worker = worker;
+            this.running = new AtomicInteger(workers);
+        }
+    }
+
+    private final List<Stage> stages = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicLong remaining;
+
+    // First exception thrown by a worker; once set, the run is cancelled
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Pipeline(long count) {
+        this.remaining = new AtomicLong(count);
+    }
+
+    // First stage has no input queue and runs until count items are produced.
+    // A worker returning null drops the item.
+    Pipeline stage(String name, int workers, int queueCapacity, Supplier<Function<Item, Item>> worker) {
+        if (!stages.isEmpty() && queueCapacity < 1)
+            throw new IllegalArgumentException("Stage " + name + " needs a queue of at least one item");
+        stages.add(new Stage(name, workers, stages.isEmpty() ? 0 : queueCapacity, worker));
+        return this;
+    }
+
+    // Runs all stages to completion. Throws the first worker failure, after all threads have stopped.
+    void run(long reportMillis) throws InterruptedException {
+        // All threads exist before any starts, so a failing worker can interrupt every one of them
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            Stage next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+            for (int w = 0; w < stage.workers; w++)
+                threads.add(new Thread(() -> work(stage, next), stage.name + "-" + w));
+        }
+        for (Thread thread : threads)
+            thread.start();
+
+        long start = System.nanoTime();
+        long[] lastCounts = new long[stages.size()];
+        long lastReport = start;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                thread.join(reportMillis);
+                long now = System.nanoTime();
+                if (now - lastReport >= reportMillis * 1_000_000L) {
+                    report("", now - lastReport, lastCounts);
+                    lastReport = now;
+                }
+            }
+        }
+
+        report("total ", System.nanoTime() - start, new long[stages.size()]);
+
+        Throwable failed = failure.get();
+        if (failed != null)
+            throw new IllegalStateException("Pipeline cancelled after a worker failed: " + failed, failed);
+    }
+
+    private void work(Stage stage, Stage next) {
+        try {
+            Function<Item, Item> worker = stage.worker.get();
+            while (failure.get() == null) {
+                Item item = null;
+                if (stage.input == null) {
+                    if (remaining.getAndDecrement() <= 0)
+                        break;
+                } else {
+                    Object taken = stage.input.take();
+                    if (taken == END)
+                        break;
+                    item = (Item) taken;
+                }
+
+                Item result = worker.apply(item);
+                stage.processed.increment();
+                if (result != null && next != null)
+                    next.input.put(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            cancel(e);
+        } finally {
+            // Last worker out tells every downstream worker to stop. After a failure every thread is already
+            // interrupted and a downstream queue may never drain, so nothing is put.
+            if (stage.running.decrementAndGet() == 0 && next != null && failure.get() == null)
+                for (int i = 0; i < next.workers; i++)
+                    putUninterruptibly(next.input, END);
+        }
+    }
+
+    // Records the first failure and interrupts every worker, unblocking those waiting on a full or empty queue
+    private void cancel(Throwable e) {
+        if (!failure.compareAndSet(null, e))
+            return;
+        System.err.println(Thread.currentThread().getName() + " failed, cancelling the pipeline: " + e);
+        for (Thread thread : threads)
+            thread.interrupt();
+    }
+
+    private static void putUninterruptibly(BlockingQueue<Object> queue, Object item) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(item);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void report(String prefix, long elapsedNanos, long[] lastCounts) {
+        StringBuilder line = new StringBuilder(prefix);
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            long count = stage.processed.sum();
+            double perSecond = (count - lastCounts[i]) * 1e9 / elapsedNanos;
+            lastCounts[i] = count;
+
+            if (i > 0)
+                line.append(" | ");
+            line.append(String.format("%s %d (%.0f/s)", stage.name, count, perSecond));
+            if (stage.input != null)
+                line.append(String.format(" queue %d/%d", stage.input.size(), stage.input.size() + stage.input.remainingCapacity()));
+        }
+        System.err.println(line);
+    }
+
+    // Attempts at a new puzzle from the same solved board before giving up on it
+    private static final int MAX_REDUCE_ATTEMPTS = 100;
+
+    // Removes digits at random like play(): keep remainingDigits, never remove more than maxRemovedPerBlock from a block
+    static int[] removeDigits(int[] solution, Random rng, int remainingDigits, int maxRemovedPerBlock) {
+        int[] state = solution.clone();
+        int[] positions = new int[9 * 9];
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = i;
+        int[] removedPerBlock = new int[9];
+
+        int removedPos = 0;
+        while (removedPos < 9 * 9 - remainingDigits) {
+            int indexToPick = removedPos + rng.nextInt(positions.length - removedPos);
+            int index = positions[indexToPick];
+            int block = Units.OF_CELL[index][2] - 18;
+
+            if (removedPerBlock[block] >= maxRemovedPerBlock)
+                continue;
+            removedPerBlock[block] += 1;
+
+            positions[indexToPick] = positions[removedPos];
+            positions[removedPos] = index;
+            state[index] = 0;
+            removedPos += 1;
+        }
+        return state;
+    }
+
+    static void main(String[] args) throws IOException, InterruptedException {
+        Options options = new Options(args);
+        int remainingDigits = options.getInt("remaining-digits", 30);
+        int maxRemovedPerBlock = options.getInt("max-removed-per-block", 6);
+        if (9 * 9 - remainingDigits > 9 * maxRemovedPerBlock)
+            throw new IllegalArgumentException("Cannot remove " + (9 * 9 - remainingDigits) + " digits with at most " + maxRemovedPerBlock + " per block");
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        long dedupeMegabytes = options.getLong("dedupe-mb", 64);
+        PackedGridSet seen = dedupeMegabytes > 0 ? new PackedGridSet(dedupeMegabytes << 20) : null;
+        String out = options.get("out", null);
+        Writer writer = new BufferedWriter(out != null ? new FileWriter(out) : new OutputStreamWriter(System.out), 1 << 16);
+
+        try {
+            new Pipeline(options.getLong("count", 1000))
+                    .stage("generate", options.getInt("generate-workers", Math.max(1, cores / 4)), 0,
+                            () -> item -> {
+                                int[] solution;
+                                do {
+                                    solution = Solver.solvedBoard(ThreadLocalRandom.current());
+                                } while (seen != null && !seen.add(solution));
+                                return new Item(solution);
+                            })
+                    .stage("reduce", options.getInt("reduce-workers", 1), options.getInt("reduce-queue", 1024),
+                            () -> item -> {
+                                // Different solved boards can still reduce to the same clues
+                                for (int attempt = 0; attempt < MAX_REDUCE_ATTEMPTS; attempt++) {
+                                    int[] puzzle = removeDigits(item.solution, ThreadLocalRandom.current(), remainingDigits, maxRemovedPerBlock);
+                                    if (seen == null || seen.add(puzzle)) {
+                                        item.puzzle = puzzle;
+                                        return item;
+                                    }
+                                }
+                                return null;
+                            })
+                    .stage("grade", options.getInt("grade-workers", Math.max(1, cores / 2)), options.getInt("grade-queue", 1024),
+                            () -> {
+                                Grader grader = new Grader();
+                                return item -> {
+                                    item.rules = grader.grade(item.puzzle, item.solution);
+                                    item.solved = grader.isSolved();
+                                    return item;
+                                };
+                            })
+                    .stage("write", options.getInt("write-workers", 1), options.getInt("write-queue", 4096),
+                            () -> item -> {
+                                String line = Codes.toCode(item.puzzle) + '\t' + Codes.toCode(item.solution) + '\t'
+                                        + (item.solved ? Rule.describe(item.rules) : "unsolved") + System.lineSeparator();
+                                try {
+                                    synchronized (writer) {
+                                        writer.write(line);
+                                    }
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                                return item;
+                            })
+                    .run(options.getLong("report-ms", 1000));
+        } finally {
+            // Keeps the lines written before a failure
+            writer.flush();
+            if (out != null)
+                writer.close();
+        }
+
+        System.err.println(UnitDeductionCache.SHARED);
+        if (seen != null)
+            System.err.println(seen);
+    }
+}
@@ -48,6 +48,9 @@ public class Program {
         // Top element is the value that was set on (row, col)
         Stack<Integer> lastDigitStack = new Stack<Integer>();
 
+        // Zobrist hash of the state on top of the stack, updated incrementally on each move
+        long stateHash = 0;
+
         // Indicates operation to perform next
         // - expand - finds next empty cell and puts new state on stacks
         // - move - finds next candidate number at current pos and applies it to current state
@@ -66,9 +69,9 @@ public class Program {
                 boolean[] bestUsedDigits = null;
                 int bestCandidatesCount = -1;
                 int bestRandomValue = -1;
-                boolean containsUnsolvableCells = false;
+                boolean containsUnsolvableCells = DeadStateTable.SHARED.contains(stateHash);
 
-                for (int index = 0; index < currentState.length; index++)
+                for (int index = 0; index < currentState.length && !containsUnsolvableCells; index++)
                     if (currentState[index] == 0) {
 
                         int row = index / 9;
@@ -120,6 +123,8 @@ public class Program {
                     colIndexStack.push(bestCol);
                     usedDigitsStack.push(bestUsedDigits);
                     lastDigitStack.push(0); // No digit was tried at this position
+                } else {
+                    DeadStateTable.SHARED.add(stateHash);
                 }
 
                 // Always try to move after expand
@@ -127,6 +132,7 @@ public class Program {
 
             } // if (command == "expand")
             else if (command.equals("collapse")) {
+                DeadStateTable.SHARED.add(stateHash);
                 stateStack.pop();
                 rowIndexStack.pop();
                 colIndexStack.pop();
@@ -154,6 +160,7 @@ public class Program {
                 if (digitToMove > 0) {
                     usedDigits[digitToMove - 1] = false;
                     currentState[currentStateIndex] = 0;
+                    stateHash ^= Zobrist.key(currentStateIndex, digitToMove);
                     board[rowToWrite][colToWrite] = '.';
                 }
 
@@ -161,6 +168,7 @@ public class Program {
                     lastDigitStack.push(movedToDigit);
                     usedDigits[movedToDigit - 1] = true;
                     currentState[currentStateIndex] = movedToDigit;
+                    stateHash ^= Zobrist.key(currentStateIndex, movedToDigit);
                     board[rowToWrite][colToWrite] = (char) ('0' + movedToDigit);
 
                     // Next possible digit was found at current position
@@ -232,19 +240,6 @@ public class Program {
         System.out.println("=".repeat(80));
         System.out.println();
 
-        Map<Integer, Integer> maskToOnesCount = new HashMap<Integer, Integer>();
-        maskToOnesCount.put(0, 0);
-        for (int i = 1; i < (1 << 9); i++) {
-            int smaller = i >> 1;
-            int increment = i & 1;
-            maskToOnesCount.put(i, maskToOnesCount.get(smaller) + increment);
-        }
-
-        Map<Integer, Integer> singleBitToIndex = new HashMap<Integer, Integer>();
-        for (int i = 0; i < 9; i++)
-            singleBitToIndex.put(1 << i, i);
-
-        int allOnes = (1 << 9) - 1;
         //endregion
 
         boolean changeMade = true;
@@ -252,31 +247,9 @@ public class Program {
             changeMade = false;
 
             //region Calculate candidates for current state of the board
+            // Generated straight-line kernel: every empty cell gets the digits none of its peers holds
             int[] candidateMasks = new int[state.length];
-
-            for (int i = 0; i < state.length; i++)
-                if (state[i] == 0) {
-
-                    int row = i / 9;
-                    int col = i % 9;
-                    int blockRow = row / 3;
-                    int blockCol = col / 3;
-
-                    int colidingNumbers = 0;
-                    for (int j = 0; j < 9; j++) {
-                        int rowSiblingIndex = 9 * row + j;
-                        int colSiblingIndex = 9 * j + col;
-                        int blockSiblingIndex = 9 * (blockRow * 3 + j / 3) + blockCol * 3 + j % 3;
-
-                        int rowSiblingMask = 1 << (state[rowSiblingIndex] - 1);
-                        int colSiblingMask = 1 << (state[colSiblingIndex] - 1);
-                        int blockSiblingMask = 1 << (state[blockSiblingIndex] - 1);
-
-                        colidingNumbers = colidingNumbers | rowSiblingMask | colSiblingMask | blockSiblingMask;
-                    }
-
-                    candidateMasks[i] = allOnes & ~colidingNumbers;
-                }
+            Kernels.candidateMasks(state, candidateMasks);
             //endregion
 
             //region Build a collection (named cellGroups) which maps cell indices into distinct groups (rows/columns/blocks)
@@ -329,7 +302,7 @@ public class Program {
                 int[] singleCandidateIndices =
                         IntStream.range(0, candidateMasks.length)
                                 .mapToObj(index -> Map.of(
-                                        "CandidatesCount", maskToOnesCount.get(candidateMasks[index]),
+                                        "CandidatesCount", Integer.bitCount(candidateMasks[index]),
                                         "Index", index))
                                 .filter(tuple -> tuple.get("CandidatesCount") == 1)
                                 .map(tuple -> tuple.get("Index"))
@@ -341,7 +314,7 @@ public class Program {
                     int pickSingleCandidateIndex = rng.nextInt(singleCandidateIndices.length);
                     int singleCandidateIndex = singleCandidateIndices[pickSingleCandidateIndex];
                     int candidateMask = candidateMasks[singleCandidateIndex];
-                    int candidate = singleBitToIndex.get(candidateMask);
+                    int candidate = Integer.numberOfTrailingZeros(candidateMask);
 
                     int row = singleCandidateIndex / 9;
                     int col = singleCandidateIndex % 9;
@@ -457,7 +430,7 @@ public class Program {
 
                     var twoDigitMasks = IntStream.range(0, candidateMasks.length)
                             .map(index -> candidateMasks[index])
-                            .filter(mask -> maskToOnesCount.get(mask) == 2)
+                            .filter(mask -> Integer.bitCount(mask) == 2)
                             .distinct().toArray();
 
                     var groups =
@@ -544,9 +517,9 @@ public class Program {
                 if (!changeMade && !stepChangeMade) {
 
                     var masks =
-                            maskToOnesCount.entrySet().stream()
-                                    .filter(tuple -> tuple.getValue() > 1)
-                                    .map(tuple -> tuple.getKey())
+                            IntStream.range(0, 1 << 9)
+                                    .filter(mask -> Integer.bitCount(mask) > 1)
+                                    .boxed()
                                     .collect(toList());
 
                     var groupsWithNMasks =
@@ -572,7 +545,7 @@ public class Program {
                                                                                 ((candidateMasks[cellIndex] & ~mask) != 0);
                                                                     })
                                                                     .count()))
-                                            .filter(group -> ((List) (group.get("CellsWithMask"))).size() == maskToOnesCount.get((Integer) group.get("Mask")))
+                                            .filter(group -> ((List) (group.get("CellsWithMask"))).size() == Integer.bitCount((Integer) group.get("Mask")))
                                             .collect(toList()))
                                     .flatMap(Collection::stream)
                                     .collect(toList());
@@ -654,7 +627,7 @@ public class Program {
                 Queue<Integer> candidateDigit2 = new LinkedList<Integer>();
 
                 for (int i = 0; i < candidateMasks.length - 1; i++) {
-                    if (maskToOnesCount.get(candidateMasks[i]) == 2) {
+                    if (Integer.bitCount(candidateMasks[i]) == 2) {
                         int row = i / 9;
                         int col = i % 9;
                         int blockIndex = 3 * (row / 3) + col / 3;
@@ -720,6 +693,7 @@ public class Program {
                     colIndexStack = new Stack<Integer>();
                     usedDigitsStack = new Stack<boolean[]>();
                     lastDigitStack = new Stack<Integer>();
+                    stateHash = Zobrist.hash(alternateState);
 
                     command = "expand";
                     while (!command.equals("complete") && !command.equals("fail")) {
@@ -737,9 +711,9 @@ public class Program {
                             boolean[] bestUsedDigits = null;
                             int bestCandidatesCount = -1;
                             int bestRandomValue = -1;
-                            boolean containsUnsolvableCells = false;
+                            boolean containsUnsolvableCells = DeadStateTable.SHARED.contains(stateHash);
 
-                            for (int index = 0; index < currentState.length; index++)
+                            for (int index = 0; index < currentState.length && !containsUnsolvableCells; index++)
                                 if (currentState[index] == 0) {
 
                                     int row = index / 9;
@@ -792,13 +766,19 @@ public class Program {
                                 colIndexStack.push(bestCol);
                                 usedDigitsStack.push(bestUsedDigits);
                                 lastDigitStack.push(0); // No digit was tried at this position
+                            } else {
+                                DeadStateTable.SHARED.add(stateHash);
                             }
 
-                            // Always try to move after expand
-                            command = "move";
+                            // Always try to move after expand, unless the starting state itself is unsolvable
+                            if (!stateStack.isEmpty())
+                                command = "move";
+                            else
+                                command = "fail";
 
                         } // if (command == "expand")
                         else if (command.equals("collapse")) {
+                            DeadStateTable.SHARED.add(stateHash);
                             stateStack.pop();
                             rowIndexStack.pop();
                             colIndexStack.pop();
@@ -829,6 +809,7 @@ public class Program {
                             if (digitToMove > 0) {
                                 usedDigits[digitToMove - 1] = false;
                                 currentState[currentStateIndex] = 0;
+                                stateHash ^= Zobrist.key(currentStateIndex, digitToMove);
                                 board[rowToWrite][colToWrite] = '.';
                             }
 
@@ -836,6 +817,7 @@ public class Program {
                                 lastDigitStack.push(movedToDigit);
                                 usedDigits[movedToDigit - 1] = true;
                                 currentState[currentStateIndex] = movedToDigit;
+                                stateHash ^= Zobrist.key(currentStateIndex, movedToDigit);
                                 board[rowToWrite][colToWrite] = (char) ('0' + movedToDigit);
 
                                 if (Arrays.stream(currentState).anyMatch(digit -> digit == 0))
@@ -919,7 +901,34 @@ public class Program {
         }
     }
 
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0) {
+            String[] commandArgs = Arrays.copyOfRange(args, 1, args.length);
+            switch (args[0]) {
+                case "pipeline":
+                    Pipeline.main(commandArgs);
+                    return;
+                case "loadtest":
+                    LoadTest.main(commandArgs);
+                    return;
+                case "extreme":
+                    HardPuzzleSearch.main(commandArgs);
+                    return;
+                case "validate":
+                    GridValidator.main(commandArgs);
+                    return;
+                case "solve":
+                    SolveCommand.main(commandArgs);
+                    return;
+                case "screen":
+                    BitSlicedSingles.main(commandArgs);
+                    return;
+                default:
+                    System.err.println("Unknown command: " + args[0]);
+                    System.exit(2);
+            }
+        }
+
         play();
 
         if (System.console() != null) {
@@ -0,0 +1,33 @@
+package sudoku.kata;
+
+// Deduction rules applied by Program.play(), in the order they are tried.
+// Sets of rules are passed around as int masks of bit().
+enum Rule {
+    NAKED_SINGLE("single"),
+    HIDDEN_SINGLE("hidden-single"),
+    NAKED_PAIR("pair"),
+    HIDDEN_GROUP("group"),
+    GUESS("guess");
+
+    private final String label;
+
+    Rule(String label) {
+        this.label = label;
+    }
+
+    int bit() {
+        return 1 << ordinal();
+    }
+
+    // Comma separated labels of the rules in the mask, e.g. "single,hidden-single"
+    static String describe(int rules) {
+        StringBuilder result = new StringBuilder();
+        for (Rule rule : values())
+            if ((rules & rule.bit()) != 0) {
+                if (result.length() > 0)
+                    result.append(',');
+                result.append(rule.label);
+            }
+        return result.toString();
+    }
+}
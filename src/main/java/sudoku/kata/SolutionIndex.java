@@ -0,0 +1,261 @@
+package sudoku.kata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+// Persistent puzzle -> (solution, rules) index in a memory-mapped file, kept between runs.
+// The file is an open-addressed hash table of fixed 128 byte slots after a 4 KiB header; capacity is chosen when
+// the file is created. One process may write (guarded by a file lock) while any number of threads and processes read.
+//
+// Slot layout: tag (8), packed puzzle (48), packed solution (48), rules (4), unused (4), checksum (8), unused (8).
+// A slot is published by writing its tag last, and readers verify the checksum, so a crash in the middle of
+// an append leaves either an empty slot or one which is never matched - never a wrong answer. The next put() of that
+// puzzle rewrites such a slot.
+final class SolutionIndex implements Closeable {
+
+    private static final long MAGIC = 0x5355444F4B554958L;   // "SUDOKUIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4096;
+    private static final int SLOT_BYTES = 128;
+
+    // 2^23 slots of 128 bytes, i.e. 1 GiB per mapping
+    private static final int SEGMENT_BITS = 23;
+
+    // Time an opener without the write lock waits for another process to finish creating the file
+    private static final long CREATE_WAIT_MILLIS = 10_000;
+
+    // Probing this many slots without a hit or free slot ends the search
+    private static final int MAX_PROBES = 1 << 10;
+
+    private static final int PUZZLE_OFFSET = 8;
+    private static final int SOLUTION_OFFSET = 56;
+    private static final int RULES_OFFSET = 104;
+    private static final int CHECKSUM_OFFSET = 112;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final FileLock writeLock;
+    private final MappedByteBuffer[] segments;
+    private final long capacity;
+
+    private SolutionIndex(FileChannel channel, FileLock writeLock, long capacity) throws IOException {
+        this.channel = channel;
+        this.writeLock = writeLock;
+        this.capacity = capacity;
+
+        long segmentSlots = Math.min(capacity, 1L << SEGMENT_BITS);
+        segments = new MappedByteBuffer[(int) (capacity / segmentSlots)];
+        FileChannel.MapMode mode = writeLock != null ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = channel.map(mode, HEADER_BYTES + i * segmentSlots * SLOT_BYTES, segmentSlots * SLOT_BYTES);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // Opens the index for reading and, when writable, for appending. A missing file is created with
+    // the given number of slots, rounded up to a power of two. When another process is already writing,
+    // the index is opened read-only instead; see isWritable().
+    // Workers restarting together may open a file another one is still creating: only the lock holder writes the
+    // header and extends the file (also finishing a creation that died halfway), and every other opener waits
+    // until the file has its full size before mapping it.
+    static SolutionIndex open(Path path, long slots, boolean writable) throws IOException {
+        if (!writable && !Files.exists(path))
+            throw new IOException("Index does not exist: " + path);
+
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            FileLock lock = writable ? tryLock(channel) : null;
+
+            long deadline = System.currentTimeMillis() + CREATE_WAIT_MILLIS;
+            long capacity;
+            while ((capacity = completeCapacity(channel, path)) < 0) {
+                if (lock != null)
+                    create(channel, slots);
+                else if (System.currentTimeMillis() > deadline)
+                    throw new IOException("Index is still being created by another process: " + path);
+                else
+                    LockSupport.parkNanos(10_000_000L);
+            }
+            return new SolutionIndex(channel, lock, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Null when another process, or another channel of this one, holds the lock
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    // Capacity from the header once the file has its full size, -1 while it is still being created
+    private static long completeCapacity(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < 16)
+            return -1;
+        if (header.getLong() != MAGIC || header.getInt() != VERSION)
+            throw new IOException("Not a solution index: " + path);
+
+        long capacity = 1L << header.getInt();
+        return channel.size() >= HEADER_BYTES + capacity * SLOT_BYTES ? capacity : -1;
+    }
+
+    // Writes the header unless present, then extends the file to its full size. Only called with the write lock.
+    private static void create(FileChannel channel, long slots) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (header.position() < 16) {
+            long capacity = Long.highestOneBit(Math.max(2, slots - 1)) << 1;
+            header.clear();
+            header.putLong(MAGIC).putInt(VERSION).putInt(Long.numberOfTrailingZeros(capacity)).flip();
+            channel.write(header, 0);
+        }
+
+        header.flip();
+        header.position(12);
+        long capacity = 1L << header.getInt();
+        // Sparse file, slots read as zero (empty) until written
+        channel.write(ByteBuffer.allocate(1), HEADER_BYTES + capacity * SLOT_BYTES - 1);
+        channel.force(true);
+    }
+
+    boolean isWritable() {
+        return writeLock != null;
+    }
+
+    // Fills solution and returns the rules stored for the puzzle, or -1 when it is not in the index
+    int find(int[] puzzle, int[] solution) {
+        long fingerprint = PackedGridSet.fingerprint(puzzle);
+        long slot = fingerprint & (capacity - 1);
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+
+            long tag = (long) LONG.getAcquire(segment, offset);
+            if (tag == 0)
+                return -1;
+            if (tag == fingerprint && matches(segment, offset + PUZZLE_OFFSET, puzzle) && checksum(segment, offset) == segment.getLong(offset + CHECKSUM_OFFSET)) {
+                unpack(segment, offset + SOLUTION_OFFSET, solution);
+                return segment.getInt(offset + RULES_OFFSET);
+            }
+
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    // Appends the puzzle unless it is already present. Only allowed on an index opened as writable.
+    // Returns false when the index is too full to take the puzzle.
+    synchronized boolean put(int[] puzzle, int[] solution, int rules) {
+        if (writeLock == null)
+            throw new IllegalStateException("Index is opened read-only");
+
+        long fingerprint = PackedGridSet.fingerprint(puzzle);
+        long slot = fingerprint & (capacity - 1);
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+
+            long tag = (long) LONG.getAcquire(segment, offset);
+            boolean present = tag == fingerprint && matches(segment, offset + PUZZLE_OFFSET, puzzle);
+            if (present && checksum(segment, offset) == segment.getLong(offset + CHECKSUM_OFFSET))
+                return true;
+
+            // A slot of this puzzle that failed its checksum was torn by a crash; find() skips it, so it is rewritten
+            if (tag == 0 || present) {
+                pack(puzzle, segment, offset + PUZZLE_OFFSET);
+                pack(solution, segment, offset + SOLUTION_OFFSET);
+                segment.putInt(offset + RULES_OFFSET, rules);
+                segment.putLong(offset + CHECKSUM_OFFSET, checksum(segment, offset));
+                LONG.setRelease(segment, offset, fingerprint);
+                return true;
+            }
+
+            slot = (slot + 1) & (capacity - 1);
+        }
+
+        return false;
+    }
+
+    // Writes appended slots to disk
+    void flush() {
+        if (writeLock != null)
+            for (MappedByteBuffer segment : segments)
+                segment.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> SEGMENT_BITS)];
+    }
+
+    private static int offset(long slot) {
+        return (int) (slot & ((1L << SEGMENT_BITS) - 1)) * SLOT_BYTES;
+    }
+
+    // 16 cells of 4 bits per long
+    private static void pack(int[] state, ByteBuffer buffer, int offset) {
+        for (int word = 0; word < 6; word++) {
+            long packed = 0;
+            for (int i = Math.min(16 * word + 15, state.length - 1); i >= 16 * word; i--)
+                packed = packed << 4 | state[i];
+            buffer.putLong(offset + 8 * word, packed);
+        }
+    }
+
+    private static void unpack(ByteBuffer buffer, int offset, int[] state) {
+        for (int word = 0; word < 6; word++) {
+            long packed = buffer.getLong(offset + 8 * word);
+            for (int i = 16 * word; i < Math.min(16 * word + 16, state.length); i++, packed >>>= 4)
+                state[i] = (int) (packed & 0xF);
+        }
+    }
+
+    private static boolean matches(ByteBuffer buffer, int offset, int[] state) {
+        for (int word = 0; word < 6; word++) {
+            long packed = buffer.getLong(offset + 8 * word);
+            for (int i = 16 * word; i < Math.min(16 * word + 16, state.length); i++, packed >>>= 4)
+                if (state[i] != (int) (packed & 0xF))
+                    return false;
+        }
+        return true;
+    }
+
+    private static long checksum(ByteBuffer buffer, int offset) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int position = PUZZLE_OFFSET; position < CHECKSUM_OFFSET; position += 8) {
+            hash ^= buffer.getLong(offset + position);
+            hash *= 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,110 @@
+package sudoku.kata;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Paths;
+
+// Solves puzzle codes and prints puzzle code, solution code and rules used per line, like pipeline output.
+// With --index, every puzzle is first looked up in a SolutionIndex file and only solved on a miss;
+// new solutions are appended, so restarted workers keep what earlier runs solved. While another process is
+// appending to the same index, this one only reads it.
+//
+// Usage: solve [--puzzle code | --in file] [--index file] [--index-slots N]
+// Input lines start with a puzzle code; anything after the first tab is ignored.
+// Codes that cannot be parsed print "malformed", and codes whose givens repeat a digit in a unit print "no solution";
+// neither reaches the solver or the index.
+final class SolveCommand {
+
+    // Stored with the rules when the rule chain could not finish the puzzle
+    static final int UNSOLVED = 1 << 30;
+
+    private final SolutionIndex index;
+    private final Grader grader = new Grader();
+    private final int[] solution = new int[9 * 9];
+    private long hits;
+    private long misses;
+    private boolean indexFull;
+
+    SolveCommand(SolutionIndex index) {
+        this.index = index;
+    }
+
+    // Returns the output line for the puzzle code
+    String solve(String code) {
+        StringBuilder line = new StringBuilder(2 * 9 * 9 + 64).append(code).append('\t');
+        int[] puzzle;
+        try {
+            puzzle = Codes.parse(code);
+        } catch (IllegalArgumentException e) {
+            return line.append("malformed").toString();
+        }
+        if (!Solver.isConsistent(puzzle))
+            return line.append("no solution").toString();
+
+        int rules = index != null ? index.find(puzzle, solution) : -1;
+        if (rules >= 0) {
+            hits += 1;
+        } else {
+            misses += 1;
+            System.arraycopy(puzzle, 0, solution, 0, solution.length);
+            if (!Solver.solve(solution, null))
+                return line.append("no solution").toString();
+
+            rules = grader.grade(puzzle, solution) | (grader.isSolved() ? 0 : UNSOLVED);
+            if (index != null && index.isWritable() && !indexFull && !index.put(puzzle, solution, rules)) {
+                // Later puzzles are still looked up and solved, just no longer appended
+                indexFull = true;
+                System.err.println("Index is full, no more solutions are appended; create a larger one with --index-slots");
+            }
+        }
+
+        // StringBuilder instead of string concatenation, which would bootstrap invokedynamic on first use
+        return line.append(Codes.toCode(solution)).append('\t')
+                .append((rules & UNSOLVED) != 0 ? "unsolved" : Rule.describe(rules)).toString();
+    }
+
+    static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        String indexPath = options.get("index", null);
+        String puzzle = options.get("puzzle", null);
+        String in = options.get("in", null);
+
+        SolutionIndex index = indexPath != null
+                ? SolutionIndex.open(Paths.get(indexPath), options.getLong("index-slots", 1 << 20), true)
+                : null;
+        SolveCommand command = new SolveCommand(index);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+
+        try {
+            if (puzzle != null) {
+                out.write(command.solve(puzzle));
+                out.write(System.lineSeparator());
+            } else {
+                BufferedReader reader = new BufferedReader(in != null ? new FileReader(in) : new InputStreamReader(System.in));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    String code = (tab >= 0 ? line.substring(0, tab) : line).trim();
+                    if (code.isEmpty())
+                        continue;
+                    out.write(command.solve(code));
+                    out.write(System.lineSeparator());
+                }
+                if (in != null)
+                    reader.close();
+            }
+            out.flush();
+        } finally {
+            if (index != null)
+                index.close();
+        }
+
+        if (index != null)
+            System.err.format("Index: %d hits, %d misses%n", command.hits, command.misses);
+    }
+}
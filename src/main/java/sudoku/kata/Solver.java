@@ -0,0 +1,160 @@
+package sudoku.kata;
+
+import java.util.Random;
+
+// Silent MRV backtracking solver over bitmask candidates.
+// Same search as the one in Program.play(): always expand the cell with the fewest candidates,
+// optionally breaking ties at random. Dead states are shared through DeadStateTable.
+final class Solver {
+
+    // Candidate masks per search depth, reused by every search on the thread.
+    // Anonymous class rather than a lambda keeps lambda bootstrapping off the one-shot solve path.
+    private static final ThreadLocal<int[][]> CANDIDATES = new ThreadLocal<int[][]>() {
+        @Override
+        protected int[][] initialValue() {
+            return new int[9 * 9 + 1][9 * 9];
+        }
+    };
+
+    // Results of pickCell() other than a cell index
+    private static final int SOLVED = -1;
+    private static final int DEAD = -2;
+
+    private Solver() {
+    }
+
+    // Constructs a randomly picked, fully populated board
+    static int[] solvedBoard(Random rng) {
+        int[] state = new int[9 * 9];
+        solve(state, rng);
+        return state;
+    }
+
+    // Completes the state in place. Returns false and leaves the state untouched when there is no solution.
+    // Passing null for rng makes the search deterministic.
+    static boolean solve(int[] state, Random rng) {
+        if (!isConsistent(state))
+            return false;
+        int[] work = state.clone();
+        if (!search(work, Zobrist.hash(work), rng, CANDIDATES.get(), 0))
+            return false;
+        System.arraycopy(work, 0, state, 0, work.length);
+        return true;
+    }
+
+    // Number of solutions of the state, counting no further than limit
+    static int countSolutions(int[] state, int limit) {
+        if (!isConsistent(state))
+            return 0;
+        return count(state.clone(), Zobrist.hash(state), CANDIDATES.get(), 0, limit);
+    }
+
+    // Whether the state has a solution with another digit than the given one in the empty cell. On a puzzle which had
+    // exactly one solution, with that digit in the cell, before the cell was cleared, this tells whether the puzzle
+    // stays unique without searching the branch of the known solution again.
+    static boolean hasSolutionWithout(int[] state, int cell, int digit) {
+        if (!isConsistent(state))
+            return false;
+
+        int[] work = state.clone();
+        int[][] candidates = CANDIDATES.get();
+        Kernels.candidateMasks(work, candidates[0]);
+        for (int mask = candidates[0][cell] & ~(1 << (digit - 1)); mask != 0; mask &= mask - 1) {
+            work[cell] = Integer.numberOfTrailingZeros(mask) + 1;
+            if (search(work, Zobrist.hash(work), null, candidates, 1))
+                return true;
+        }
+        return false;
+    }
+
+    // Whether no unit repeats a digit among its filled cells. The search only checks empty cells, so it would
+    // otherwise "complete" a board with clashing givens, or run through the whole tree when none completes it.
+    static boolean isConsistent(int[] state) {
+        for (int unit = 0; unit < Units.COUNT; unit++) {
+            int filled = 0;
+            for (int cell : Units.CELLS[unit])
+                if (state[cell] != 0)
+                    filled += 1;
+            if (Integer.bitCount(Kernels.placedDigits(state, unit)) != filled)
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean search(int[] state, long hash, Random rng, int[][] candidates, int depth) {
+        if (DeadStateTable.SHARED.contains(hash))
+            return false;
+
+        int[] masks = candidates[depth];
+        int bestIndex = pickCell(state, masks, rng);
+        if (bestIndex == SOLVED)
+            return true;
+        if (bestIndex == DEAD) {
+            DeadStateTable.SHARED.add(hash);
+            return false;
+        }
+
+        for (int mask = masks[bestIndex]; mask != 0; mask &= mask - 1) {
+            int digit = Integer.numberOfTrailingZeros(mask) + 1;
+            state[bestIndex] = digit;
+            if (search(state, hash ^ Zobrist.key(bestIndex, digit), rng, candidates, depth + 1))
+                return true;
+        }
+
+        state[bestIndex] = 0;
+        DeadStateTable.SHARED.add(hash);
+        return false;
+    }
+
+    private static int count(int[] state, long hash, int[][] candidates, int depth, int limit) {
+        if (DeadStateTable.SHARED.contains(hash))
+            return 0;
+
+        int[] masks = candidates[depth];
+        int bestIndex = pickCell(state, masks, null);
+        if (bestIndex == SOLVED)
+            return 1;
+        if (bestIndex == DEAD) {
+            DeadStateTable.SHARED.add(hash);
+            return 0;
+        }
+
+        int found = 0;
+        for (int mask = masks[bestIndex]; mask != 0 && found < limit; mask &= mask - 1) {
+            int digit = Integer.numberOfTrailingZeros(mask) + 1;
+            state[bestIndex] = digit;
+            found += count(state, hash ^ Zobrist.key(bestIndex, digit), candidates, depth + 1, limit - found);
+        }
+
+        state[bestIndex] = 0;
+        if (found == 0)
+            DeadStateTable.SHARED.add(hash);
+        return found;
+    }
+
+    // Fills candidate masks and returns the empty cell with fewest candidates, SOLVED if there is none,
+    // or DEAD if some empty cell has no candidates
+    private static int pickCell(int[] state, int[] masks, Random rng) {
+        Kernels.candidateMasks(state, masks);
+
+        int bestIndex = SOLVED;
+        int bestCount = 10;
+        int bestRandom = 0;
+
+        for (int index = 0; index < state.length; index++)
+            if (state[index] == 0) {
+                int count = Integer.bitCount(masks[index]);
+                if (count == 0)
+                    return DEAD;
+
+                int random = rng != null ? rng.nextInt() : 0;
+                if (count < bestCount || (count == bestCount && random < bestRandom)) {
+                    bestIndex = index;
+                    bestCount = count;
+                    bestRandom = random;
+                }
+            }
+
+        return bestIndex;
+    }
+}
@@ -0,0 +1,60 @@
+package sudoku.kata;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Measures wall time of one-shot `solve --puzzle` invocations, each in a new JVM, with and without the startup profile.
+// Run by the startupBenchmark Gradle task.
+//
+// Usage: StartupBenchmark --jar file [--archive file] [--runs N] [--puzzle code]
+final class StartupBenchmark {
+
+    // JVM options of the startup profile: C1 only and serial GC, both cheaper to start for runs this short
+    static final String[] STARTUP_PROFILE = {"-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC", "-Xshare:auto"};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = new Options(args);
+        String jar = options.get("jar", "build/libs/sudoku-kata.jar");
+        String archive = options.get("archive", null);
+        int runs = options.getInt("runs", 20);
+        String puzzle = options.get("puzzle", "400500030300208140006000000020670003000000002068025400000960020050000609630002704");
+
+        measure("default JVM", jar, puzzle, runs);
+        measure("startup profile", jar, puzzle, runs, STARTUP_PROFILE);
+        if (archive != null && new File(archive).exists()) {
+            String[] withArchive = Arrays.copyOf(STARTUP_PROFILE, STARTUP_PROFILE.length + 1);
+            withArchive[STARTUP_PROFILE.length] = "-XX:SharedArchiveFile=" + archive;
+            measure("startup profile + AppCDS", jar, puzzle, runs, withArchive);
+        }
+    }
+
+    private static void measure(String name, String jar, String puzzle, int runs, String... jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(Arrays.asList(jvmOptions));
+        command.addAll(Arrays.asList("-cp", jar, Program.class.getName(), "solve", "--puzzle", puzzle));
+
+        // One run to warm the file system cache
+        run(command);
+
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            run(command);
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+
+        Arrays.sort(millis);
+        System.out.format("%-26s median %4d ms, min %4d ms, max %4d ms over %d runs%n",
+                name, millis[runs / 2], millis[0], millis[runs - 1], runs);
+    }
+
+    private static void run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        if (process.waitFor() != 0)
+            throw new IllegalStateException("Command failed: " + String.join(" ", command));
+    }
+}
@@ -0,0 +1,24 @@
+package sudoku.kata;
+
+// Candidate eliminations found by a subset rule within one unit.
+// Positions are 0..8 within the unit (see Units.CELLS), so the same deduction applies to any unit with the same candidates.
+final class UnitDeduction {
+
+    final Rule rule;
+
+    // Digits forming the pair or group
+    final int digits;
+
+    // Positions holding the digits
+    final int positions;
+
+    // Candidates removed at each position
+    final int[] removed;
+
+    UnitDeduction(Rule rule, int digits, int positions, int[] removed) {
+        this.rule = rule;
+        this.digits = digits;
+        this.positions = positions;
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,90 @@
+package sudoku.kata;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded, lock-free cache of subset rule results per unit, keyed by the unit's signature:
+// its nine 9-bit candidate masks, the digits already placed in it and the rule.
+// Direct-mapped like DeadStateTable: a miss computes the deduction and replaces whatever was in the slot.
+// Results are immutable and shared by all threads.
+final class UnitDeductionCache {
+
+    static final UnitDeductionCache SHARED = new UnitDeductionCache(1 << 16);
+
+    private static final class Entry {
+        final long low;
+        final long high;
+        final UnitDeduction deduction;   // null when the rule does not apply
+
+        Entry(long low, long high, UnitDeduction deduction) {
+            this.low = low;
+            this.high = high;
+            this.deduction = deduction;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    UnitDeductionCache(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    UnitDeduction get(Rule rule, int[] masks, int placed) {
+        long low = 0;
+        for (int i = 0; i < 7; i++)
+            low |= (long) masks[i] << (9 * i);
+        long high = masks[7] | masks[8] << 9 | placed << 18 | (long) rule.ordinal() << 27;
+
+        int slot = slot(low, high);
+        Entry entry = slots.get(slot);
+        if (entry != null && entry.low == low && entry.high == high) {
+            hits.increment();
+            return entry.deduction;
+        }
+
+        misses.increment();
+        if (entry != null)
+            evictions.increment();
+
+        UnitDeduction deduction = rule == Rule.NAKED_PAIR ? UnitRules.nakedPair(masks) : UnitRules.hiddenGroup(masks, placed);
+        slots.set(slot, new Entry(low, high, deduction));
+        return deduction;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    double hitRate() {
+        long hits = hits();
+        long total = hits + misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("unit cache: %d hits, %d misses, %d evictions, hit rate %.1f%%", hits(), misses(), evictions(), 100 * hitRate());
+    }
+
+    private int slot(long low, long high) {
+        long hash = low * 0x9E3779B97F4A7C15L ^ high * 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 31;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
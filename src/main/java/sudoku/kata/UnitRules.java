@@ -0,0 +1,69 @@
+package sudoku.kata;
+
+// Subset rules from Program.play() evaluated on a single unit, given the candidate masks of its nine cells.
+final class UnitRules {
+
+    private UnitRules() {
+    }
+
+    // Two cells hold exactly the same two candidates, so those digits cannot appear in other cells of the unit
+    static UnitDeduction nakedPair(int[] masks) {
+        for (int i = 0; i < 9; i++) {
+            int pair = masks[i];
+            if (Integer.bitCount(pair) != 2)
+                continue;
+
+            int positions = 0;
+            for (int j = 0; j < 9; j++)
+                if (masks[j] == pair)
+                    positions |= 1 << j;
+
+            // Only look at each pair once, from its first cell
+            if (Integer.bitCount(positions) != 2 || Integer.numberOfTrailingZeros(positions) != i)
+                continue;
+
+            int[] removed = new int[9];
+            boolean any = false;
+            for (int j = 0; j < 9; j++)
+                if (masks[j] != pair && (masks[j] & pair) != 0) {
+                    removed[j] = masks[j] & pair;
+                    any = true;
+                }
+
+            if (any)
+                return new UnitDeduction(Rule.NAKED_PAIR, pair, positions, removed);
+        }
+        return null;
+    }
+
+    // N digits appear only in N cells, so no other digit can appear in those cells.
+    // Placed digits are those already on the board within the unit; groups containing them are skipped.
+    static UnitDeduction hiddenGroup(int[] masks, int placed) {
+        int free = ((1 << 9) - 1) & ~placed;
+        for (int digits = free; digits > 0; digits = (digits - 1) & free) {
+            int size = Integer.bitCount(digits);
+            if (size < 2)
+                continue;
+
+            int positions = 0;
+            for (int j = 0; j < 9; j++)
+                if ((masks[j] & digits) != 0)
+                    positions |= 1 << j;
+
+            if (Integer.bitCount(positions) != size)
+                continue;
+
+            int[] removed = new int[9];
+            boolean any = false;
+            for (int j = 0; j < 9; j++)
+                if ((positions & (1 << j)) != 0 && (masks[j] & ~digits) != 0) {
+                    removed[j] = masks[j] & ~digits;
+                    any = true;
+                }
+
+            if (any)
+                return new UnitDeduction(Rule.HIDDEN_GROUP, digits, positions, removed);
+        }
+        return null;
+    }
+}
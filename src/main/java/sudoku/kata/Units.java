@@ -0,0 +1,55 @@
+package sudoku.kata;
+
+// Geometry of the 9x9 board: 27 units (rows 0-8, columns 9-17, blocks 18-26) and the peers of each cell.
+// Cells are indexed 9 * row + col, same as the state arrays in Program.
+final class Units {
+
+    static final int COUNT = 27;
+
+    // Cell indices of each unit, in reading order
+    static final int[][] CELLS = new int[COUNT][9];
+
+    // Row, column and block unit of each cell
+    static final int[][] OF_CELL = new int[9 * 9][3];
+
+    // Other cells sharing a unit with each cell
+    static final int[][] PEERS = new int[9 * 9][20];
+
+    static {
+        for (int unit = 0; unit < 9; unit++)
+            for (int i = 0; i < 9; i++) {
+                CELLS[unit][i] = 9 * unit + i;
+                CELLS[9 + unit][i] = 9 * i + unit;
+                CELLS[18 + unit][i] = 9 * ((unit / 3) * 3 + i / 3) + (unit % 3) * 3 + i % 3;
+            }
+
+        for (int index = 0; index < 9 * 9; index++) {
+            int row = index / 9;
+            int col = index % 9;
+            OF_CELL[index][0] = row;
+            OF_CELL[index][1] = 9 + col;
+            OF_CELL[index][2] = 18 + 3 * (row / 3) + col / 3;
+
+            int count = 0;
+            for (int other = 0; other < 9 * 9; other++) {
+                int otherRow = other / 9;
+                int otherCol = other % 9;
+                boolean sameBlock = row / 3 == otherRow / 3 && col / 3 == otherCol / 3;
+                if (other != index && (row == otherRow || col == otherCol || sameBlock))
+                    PEERS[index][count++] = other;
+            }
+        }
+    }
+
+    private Units() {
+    }
+
+    // Same wording as the group descriptions printed by Program, e.g. "row #3" or "block (1, 2)"
+    static String describe(int unit) {
+        if (unit < 9)
+            return "row #" + (unit + 1);
+        if (unit < 18)
+            return "column #" + (unit - 9 + 1);
+        return "block (" + ((unit - 18) / 3 + 1) + ", " + ((unit - 18) % 3 + 1) + ")";
+    }
+}
@@ -0,0 +1,35 @@
+package sudoku.kata;
+
+// 64-bit Zobrist hashing of board states.
+// Every (cell, digit) pair has a random key and the hash of a state is XOR of the keys of its filled cells,
+// so setting or clearing a single cell updates the hash with one XOR. Empty board hashes to 0.
+final class Zobrist {
+
+    private static final long[] KEYS = new long[9 * 9 * 9];
+
+    static {
+        // SplitMix64 from a fixed seed keeps hashes stable between runs without loading a random generator
+        long seed = 0x5D0C_0A7AL;
+        for (int i = 0; i < KEYS.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            long key = (seed ^ (seed >>> 30)) * 0xBF58476D1CE4E5B9L;
+            key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+            KEYS[i] = key ^ (key >>> 31);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    static long key(int index, int digit) {
+        return KEYS[9 * index + digit - 1];
+    }
+
+    static long hash(int[] state) {
+        long hash = 0;
+        for (int index = 0; index < state.length; index++)
+            if (state[index] > 0)
+                hash ^= key(index, state[index]);
+        return hash;
+    }
+}